@@ -0,0 +1,54 @@
+// k6 load test: ~90% point reads, ~8% list pages, ~2% creates against a running service.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=500 -e DURATION=2m load-tests/device-read-mix.js
+//
+// Run once with the default profile and once with SPRING_PROFILES_ACTIVE=virtual-threads against the
+// same database, then compare http_reqs (throughput) and http_req_duration p(99) from the summary.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const DEVICES = `${BASE_URL}/device-service/v1/devices`;
+const SEED = parseInt(__ENV.SEED || '1000');
+
+export const options = {
+    scenarios: {
+        mix: {
+            executor: 'constant-vus',
+            vus: parseInt(__ENV.VUS || '200'),
+            duration: __ENV.DURATION || '1m',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const batch = [];
+    for (let i = 0; i < SEED; i++) {
+        batch.push({ name: `Load device ${i}`, brand: `Brand ${i % 50}` });
+    }
+    const res = http.post(`${DEVICES}/batch`, JSON.stringify(batch), {
+        headers: { 'Content-Type': 'application/json' },
+    });
+    check(res, { 'seeded': (r) => r.status === 200 });
+    return { ids: res.json('results').filter((r) => r.device).map((r) => r.device.id) };
+}
+
+export default function (data) {
+    const roll = Math.random();
+    if (roll < 0.90) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        check(http.get(`${DEVICES}/${id}`, { tags: { name: 'get-by-id' } }), { 'get 200': (r) => r.status === 200 });
+    } else if (roll < 0.98) {
+        const brand = encodeURIComponent(`Brand ${Math.floor(Math.random() * 50)}`);
+        check(http.get(`${DEVICES}?brand=${brand}&size=20&withTotal=false`, { tags: { name: 'list' } }),
+            { 'list 200': (r) => r.status === 200 });
+    } else {
+        const body = JSON.stringify({ name: `Load create ${__VU}-${__ITER}`, brand: 'Load' });
+        check(http.post(DEVICES, body, { headers: { 'Content-Type': 'application/json' }, tags: { name: 'create' } }),
+            { 'create 201': (r) => r.status === 201 });
+    }
+}
@@ -0,0 +1,108 @@
+// k6 load test: raises the request rate step by step with a database-bound mix (list pages with totals,
+// PATCHes and small batch creates) and samples the primary connection pool while it runs.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e MAX_RATE=800 load-tests/pool-saturation.js
+//
+// Start the service with SPRING_PROFILES_ACTIVE=no-second-level-cache so reads reach the database, and repeat
+// with DB_POOL_SIZE=10, 20 and 40. The pool is large enough once pool_pending stays near 0 and
+// pool_acquire_max_ms stays in single-digit milliseconds at the target rate; beyond that, a larger pool only
+// adds contention inside PostgreSQL and http_req_duration p(99) stops improving or gets worse.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const DEVICES = `${BASE_URL}/device-service/v1/devices`;
+const METRICS = `${BASE_URL}/actuator/metrics`;
+const SEED = parseInt(__ENV.SEED || '5000');
+const MAX_RATE = parseInt(__ENV.MAX_RATE || '600');
+const STEP_SECONDS = parseInt(__ENV.STEP_SECONDS || '30');
+const POOL = __ENV.POOL || 'primary';
+
+const poolPending = new Trend('pool_pending');
+const poolActive = new Trend('pool_active');
+const poolAcquireMax = new Trend('pool_acquire_max_ms', true);
+
+export const options = {
+    scenarios: {
+        load: {
+            executor: 'ramping-arrival-rate',
+            startRate: Math.ceil(MAX_RATE / 4),
+            timeUnit: '1s',
+            preAllocatedVUs: 200,
+            maxVUs: parseInt(__ENV.MAX_VUS || '2000'),
+            stages: [
+                { target: Math.ceil(MAX_RATE / 4), duration: `${STEP_SECONDS}s` },
+                { target: Math.ceil(MAX_RATE / 2), duration: `${STEP_SECONDS}s` },
+                { target: Math.ceil(MAX_RATE / 2), duration: `${STEP_SECONDS}s` },
+                { target: MAX_RATE, duration: `${STEP_SECONDS}s` },
+                { target: MAX_RATE, duration: `${STEP_SECONDS}s` },
+            ],
+        },
+        pool: {
+            executor: 'constant-vus',
+            exec: 'samplePool',
+            vus: 1,
+            duration: `${5 * STEP_SECONDS}s`,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        'http_req_failed{scenario:load}': ['rate<0.01'],
+        'http_req_duration{scenario:load}': ['p(99)<500'],
+    },
+};
+
+export function setup() {
+    const ids = [];
+    for (let offset = 0; offset < SEED; offset += 1000) {
+        const batch = [];
+        for (let i = offset; i < Math.min(offset + 1000, SEED); i++) {
+            batch.push({ name: `Pool device ${i}`, brand: `Brand ${i % 50}` });
+        }
+        const res = http.post(`${DEVICES}/batch`, JSON.stringify(batch), {
+            headers: { 'Content-Type': 'application/json' },
+        });
+        check(res, { 'seeded': (r) => r.status === 200 });
+        res.json('results').filter((r) => r.device).forEach((r) => ids.push(r.device.id));
+    }
+    return { ids };
+}
+
+export default function (data) {
+    const roll = Math.random();
+    if (roll < 0.60) {
+        const brand = encodeURIComponent(`Brand ${Math.floor(Math.random() * 50)}`);
+        const page = Math.floor(Math.random() * 5);
+        check(http.get(`${DEVICES}?brand=${brand}&page=${page}&size=20`, { tags: { name: 'list' } }),
+            { 'list 200': (r) => r.status === 200 });
+    } else if (roll < 0.90) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        const body = JSON.stringify({ name: `Pool renamed ${__VU}-${__ITER}` });
+        check(http.patch(`${DEVICES}/${id}`, body, { headers: { 'Content-Type': 'application/json' }, tags: { name: 'update' } }),
+            { 'update 200': (r) => r.status === 200 || r.status === 409 });
+    } else {
+        const batch = [];
+        for (let i = 0; i < 10; i++) {
+            batch.push({ name: `Pool create ${__VU}-${__ITER}-${i}`, brand: 'Pool' });
+        }
+        check(http.post(`${DEVICES}/batch`, JSON.stringify(batch), { headers: { 'Content-Type': 'application/json' }, tags: { name: 'batch-create' } }),
+            { 'batch 200': (r) => r.status === 200 });
+    }
+}
+
+export function samplePool() {
+    poolPending.add(measurement('hikaricp.connections.pending', 'VALUE'));
+    poolActive.add(measurement('hikaricp.connections.active', 'VALUE'));
+    poolAcquireMax.add(measurement('hikaricp.connections.acquire', 'MAX') * 1000);
+    sleep(1);
+}
+
+function measurement(metric, statistic) {
+    const res = http.get(`${METRICS}/${metric}?tag=pool:${POOL}`, { tags: { name: 'pool-metrics' } });
+    if (res.status !== 200) {
+        return 0;
+    }
+    const sample = res.json('measurements').find((m) => m.statistic === statistic);
+    return sample ? sample.value : 0;
+}
@@ -0,0 +1,48 @@
+package org.hometask.devicesapi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.model.DeviceState;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+JSON serialization of a list response, using the same ObjectMapper setup as the running service
+*/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DevicePageSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<DeviceDTO> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<DeviceDTO> devices = new ArrayList<>(pageSize);
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int i = 0; i < pageSize; i++) {
+            devices.add(new DeviceDTO((long) i, "Device " + i, "Brand " + i % 10, DeviceState.values()[i % 3], now, 0L));
+        }
+        page = new PageImpl<>(devices, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
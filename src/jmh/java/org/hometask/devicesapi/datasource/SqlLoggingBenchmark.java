@@ -0,0 +1,137 @@
+package org.hometask.devicesapi.datasource;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.ConsoleAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import org.hibernate.engine.jdbc.spi.SqlStatementLogger;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.service.DeviceServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Logging cost around one list query on four request threads, with stdout sent to a file. showSqlAndInfoLogs is the
+former setup (show-sql and the INFO service line, both written synchronously), sampledSqlAndDebugLogs the current one
+(guarded DEBUG line and the sampled SQL listener behind the async appender)
+*/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class SqlLoggingBenchmark {
+
+    private static final String SQL = "select d1_0.id,d1_0.brand,d1_0.creation_time,d1_0.name,d1_0.state,d1_0.version "
+            + "from device d1_0 where d1_0.brand=? order by d1_0.id offset ? rows fetch first ? rows only";
+
+    private final Logger serviceLog = LoggerFactory.getLogger(DeviceServiceImpl.class);
+    private final DeviceFilter filter = DeviceFilter.builder().brand("Apple").build();
+
+    private Logger synchronousServiceLog;
+    private PrintStream stdout;
+    private Path output;
+    private LoggerContext loggerContext;
+    private SqlStatementLogger showSql;
+
+    @State(Scope.Benchmark)
+    public static class Sampling {
+
+        @Param({"0", "0.01", "0.1"})
+        public double sampleRate;
+
+        private SampledSqlLoggingListener listener;
+        private ExecutionInfo execution;
+        private List<QueryInfo> queries;
+
+        @Setup
+        public void setUp() {
+            listener = new SampledSqlLoggingListener(sampleRate, Duration.ofMillis(500));
+            execution = new ExecutionInfo();
+            execution.setElapsedTime(2);
+            execution.setSuccess(true);
+            execution.setStatementType(StatementType.PREPARED);
+            queries = List.of(new QueryInfo(SQL));
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        output = Files.createTempFile("sql-logging-benchmark", ".log");
+        stdout = System.out;
+        System.setOut(new PrintStream(new FileOutputStream(output.toFile()), true));
+
+        showSql = new SqlStatementLogger(true, false, false, 0);
+        loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.reset();
+        ch.qos.logback.classic.Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        ConsoleAppender<ILoggingEvent> console = console();
+        root.addAppender(async(console));
+        // The former setup: service lines written to the console by the calling thread
+        ch.qos.logback.classic.Logger synchronous = loggerContext.getLogger("synchronous." + DeviceServiceImpl.class.getName());
+        synchronous.setAdditive(false);
+        synchronous.addAppender(console);
+        synchronousServiceLog = synchronous;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loggerContext.stop();
+        System.out.close();
+        System.setOut(stdout);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void showSqlAndInfoLogs() {
+        synchronousServiceLog.info("Fetching devices - filter: {}, page: {}, size: {}, sort: {}", filter, 0, 20, "id");
+        showSql.logStatement(SQL);
+    }
+
+    @Benchmark
+    public void sampledSqlAndDebugLogs(Sampling sampling) {
+        if (serviceLog.isDebugEnabled()) {
+            serviceLog.debug("Fetching devices - filter: {}, page: {}, size: {}, sort: {}", filter, 0, 20, "id");
+        }
+        sampling.listener.afterQuery(sampling.execution, sampling.queries);
+    }
+
+    private ConsoleAppender<ILoggingEvent> console() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        ConsoleAppender<ILoggingEvent> console = new ConsoleAppender<>();
+        console.setContext(loggerContext);
+        console.setEncoder(encoder);
+        console.start();
+        return console;
+    }
+
+    private AsyncAppender async(Appender<ILoggingEvent> delegate) {
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(loggerContext);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.addAppender(delegate);
+        async.start();
+        return async;
+    }
+}
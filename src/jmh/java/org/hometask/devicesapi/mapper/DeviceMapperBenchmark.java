@@ -0,0 +1,47 @@
+package org.hometask.devicesapi.mapper;
+
+import org.hometask.devicesapi.dto.DeviceCreateCommand;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.hometask.devicesapi.model.DeviceState;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/*
+MapStruct conversions on the create and read paths
+*/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceMapperBenchmark {
+
+    private DeviceMapper deviceMapper;
+    private DeviceEntity entity;
+    private DeviceCreateCommand command;
+
+    @Setup
+    public void setUp() {
+        deviceMapper = new DeviceMapperImpl();
+        entity = DeviceEntity.builder()
+                .id(1L)
+                .name("iPhone 15 Pro")
+                .brand("Apple")
+                .state(DeviceState.AVAILABLE)
+                .creationTime(OffsetDateTime.now())
+                .build();
+        command = new DeviceCreateCommand("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE, OffsetDateTime.now());
+    }
+
+    @Benchmark
+    public DeviceDTO toDTO() {
+        return deviceMapper.toDTO(entity);
+    }
+
+    @Benchmark
+    public DeviceEntity toEntity() {
+        return deviceMapper.toEntity(command);
+    }
+}
@@ -0,0 +1,24 @@
+package org.hometask.devicesapi.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Sort string parsing done by DeviceServiceImpl for every list request
+*/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CreatePageableBenchmark {
+
+    @Param({"", "name", "name,desc", "creationTime,asc"})
+    public String sort;
+
+    @Benchmark
+    public Pageable createPageable() {
+        return DeviceServiceImpl.createPageable(3, 20, sort);
+    }
+}
@@ -0,0 +1,54 @@
+package org.hometask.devicesapi.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Precompiled sort lookup against the split-and-build parser that createPageable used before
+*/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceSortResolverBenchmark {
+
+    private static final List<String> SORTABLE_FIELDS = List.of("id", "name", "brand", "state", "creationTime");
+
+    @Param({"", "name", "name,desc", "creationTime,asc", "brand, DESC"})
+    public String sort;
+
+    @Benchmark
+    public Sort resolve() {
+        return DeviceSortResolver.resolve(sort);
+    }
+
+    @Benchmark
+    public Sort legacyParse() {
+        return legacyCreateSort(sort);
+    }
+
+    private static Sort legacyCreateSort(String sortBy) {
+        String defaultField = "id";
+
+        if (sortBy == null || sortBy.isBlank()) {
+            return Sort.by(Sort.Direction.ASC, defaultField);
+        }
+
+        String[] params = sortBy.split(",");
+
+        String field = params.length > 0 ? params[0].trim() : defaultField;
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new IllegalArgumentException(field);
+        }
+
+        Sort.Direction direction =
+                params.length > 1 && params[1].equalsIgnoreCase("desc")
+                        ? Sort.Direction.DESC
+                        : Sort.Direction.ASC;
+
+        return Sort.by(direction, field);
+    }
+}
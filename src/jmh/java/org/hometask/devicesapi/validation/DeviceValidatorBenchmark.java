@@ -0,0 +1,46 @@
+package org.hometask.devicesapi.validation;
+
+import org.hometask.devicesapi.dto.DeviceUpdateCommand;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.hometask.devicesapi.model.DeviceState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Update validation for the common accepted cases; rejected updates are dominated by exception creation
+*/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceValidatorBenchmark {
+
+    private DeviceValidator deviceValidator;
+    private DeviceEntity availableDevice;
+    private DeviceEntity inUseDevice;
+    private DeviceUpdateCommand renameCommand;
+    private DeviceUpdateCommand stateCommand;
+
+    @Setup
+    public void setUp() {
+        deviceValidator = new DeviceValidator();
+        availableDevice = DeviceEntity.builder().id(1L).name("iPhone 15").brand("Apple").state(DeviceState.AVAILABLE).build();
+        inUseDevice = DeviceEntity.builder().id(2L).name("iPhone 15").brand("Apple").state(DeviceState.IN_USE).build();
+        renameCommand = new DeviceUpdateCommand("iPhone 15 Pro", "Apple Inc", null, null);
+        stateCommand = new DeviceUpdateCommand("iPhone 15", null, DeviceState.AVAILABLE, null);
+    }
+
+    @Benchmark
+    public void validateUpdateAvailableDevice(Blackhole blackhole) {
+        deviceValidator.validateUpdate(availableDevice, renameCommand);
+        blackhole.consume(availableDevice);
+    }
+
+    @Benchmark
+    public void validateUpdateInUseDevice(Blackhole blackhole) {
+        deviceValidator.validateUpdate(inUseDevice, stateCommand);
+        blackhole.consume(inUseDevice);
+    }
+}
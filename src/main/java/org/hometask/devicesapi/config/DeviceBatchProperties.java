@@ -0,0 +1,12 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*
+Limits for POST /devices/batch and POST /devices/state-transitions. chunkSize rows are flushed per JDBC batch and
+then detached; transitionChunkSize ids are locked and updated per statement
+*/
+
+@ConfigurationProperties(prefix = "devices.batch")
+public record DeviceBatchProperties(int maxItems, int chunkSize, int transitionChunkSize) {
+}
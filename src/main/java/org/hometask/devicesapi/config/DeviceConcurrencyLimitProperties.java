@@ -0,0 +1,15 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+Adaptive cap on requests in flight. The limit starts at initialLimit, is recomputed from request latencies every
+window and stays within minLimit and maxLimit; shed requests are told to retry after retryAfter
+*/
+
+@ConfigurationProperties(prefix = "devices.concurrency-limit")
+public record DeviceConcurrencyLimitProperties(boolean enabled, int initialLimit, int minLimit, int maxLimit,
+                                               Duration window, Duration retryAfter) {
+}
@@ -0,0 +1,13 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/*
+Relay settings for the device outbox. sink selects where relayed events go: "log" or "file" (NDJSON appended to sinkFile)
+*/
+
+@ConfigurationProperties(prefix = "devices.outbox")
+public record DeviceOutboxProperties(int batchSize, String sink, Path sinkFile) {
+}
@@ -0,0 +1,19 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*
+Token buckets per client and endpoint class. Clients are told apart by their address, or by clientHeader when one
+is configured and the request carries it; at most maxClients buckets are kept per endpoint class
+*/
+
+@ConfigurationProperties(prefix = "devices.rate-limit")
+public record DeviceRateLimitProperties(boolean enabled, String clientHeader, long maxClients,
+                                        Limit writes, Limit lists, Limit reads) {
+
+    /*
+    Up to capacity requests at once, refilled at perSecond
+    */
+    public record Limit(long capacity, double perSecond) {
+    }
+}
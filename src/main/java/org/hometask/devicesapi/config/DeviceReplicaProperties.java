@@ -0,0 +1,16 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/*
+Read replicas serving read-only transactions. Each url gets its own pool; a replica that cannot hand out a
+connection within connectionTimeout is skipped for retryAfter
+*/
+
+@ConfigurationProperties(prefix = "devices.datasource.replicas")
+public record DeviceReplicaProperties(List<String> urls, String username, String password, int poolSize,
+                                      Duration connectionTimeout, Duration retryAfter) {
+}
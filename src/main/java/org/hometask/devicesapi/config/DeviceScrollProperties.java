@@ -0,0 +1,12 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*
+Limits for keyset scrolling (GET /devices?after=). A window of more than maxSize devices, or of fewer than one,
+is rejected rather than loaded
+*/
+
+@ConfigurationProperties(prefix = "devices.scroll")
+public record DeviceScrollProperties(int maxSize) {
+}
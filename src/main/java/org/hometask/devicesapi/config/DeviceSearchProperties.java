@@ -0,0 +1,13 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*
+Limits for GET /devices/search. Queries shorter than minQueryLength are rejected, since pg_trgm cannot narrow them
+down with the index; page sizes above maxSize are capped. At most candidateLimit matches are ranked per query, which
+bounds the cost of queries that match most devices; their pages are marked truncated
+*/
+
+@ConfigurationProperties(prefix = "devices.search")
+public record DeviceSearchProperties(int minQueryLength, int maxSize, int candidateLimit) {
+}
@@ -0,0 +1,14 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+Bounds of the Hibernate second-level cache regions: device entities by id and the results of filtered list queries
+*/
+
+@ConfigurationProperties(prefix = "devices.second-level-cache")
+public record DeviceSecondLevelCacheProperties(long entityMaxSize, Duration entityTtl,
+                                               long queryMaxSize, Duration queryTtl) {
+}
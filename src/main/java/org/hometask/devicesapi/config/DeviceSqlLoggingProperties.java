@@ -0,0 +1,14 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+SQL logging through the datasource proxy. Statements slower than slowThreshold are always logged (zero turns that
+off), a sampleRate share of the rest is logged with their bind parameters
+*/
+
+@ConfigurationProperties(prefix = "devices.sql-logging")
+public record DeviceSqlLoggingProperties(boolean enabled, double sampleRate, Duration slowThreshold) {
+}
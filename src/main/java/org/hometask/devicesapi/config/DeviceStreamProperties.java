@@ -0,0 +1,14 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+Limits for GET /devices/stream. A subscriber more than bufferSize events behind is disconnected;
+the last replaySize events are kept for clients reconnecting with Last-Event-ID
+*/
+
+@ConfigurationProperties(prefix = "devices.stream")
+public record DeviceStreamProperties(int bufferSize, int replaySize, Duration timeout, Duration heartbeat) {
+}
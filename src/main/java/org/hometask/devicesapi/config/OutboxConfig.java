@@ -0,0 +1,32 @@
+package org.hometask.devicesapi.config;
+
+import org.hometask.devicesapi.outbox.DeviceOutboxSink;
+import org.hometask.devicesapi.outbox.FileDeviceOutboxSink;
+import org.hometask.devicesapi.outbox.LoggingDeviceOutboxSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+Selects the sink the outbox relay publishes to. A DeviceOutboxSink component of the application (a broker client)
+replaces both
+*/
+
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(DeviceOutboxSink.class)
+    @ConditionalOnProperty(prefix = "devices.outbox", name = "sink", havingValue = "file")
+    public DeviceOutboxSink fileDeviceOutboxSink(DeviceOutboxProperties properties) {
+        return new FileDeviceOutboxSink(properties.sinkFile());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(DeviceOutboxSink.class)
+    @ConditionalOnProperty(prefix = "devices.outbox", name = "sink", havingValue = "log", matchIfMissing = true)
+    public DeviceOutboxSink loggingDeviceOutboxSink() {
+        return new LoggingDeviceOutboxSink();
+    }
+}
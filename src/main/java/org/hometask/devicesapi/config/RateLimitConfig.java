@@ -0,0 +1,45 @@
+package org.hometask.devicesapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hometask.devicesapi.ratelimit.DeviceConcurrencyLimitFilter;
+import org.hometask.devicesapi.ratelimit.DeviceRateLimitFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/*
+Puts the rate limit and then the concurrency limit in front of the device endpoints; actuator and API docs are not
+limited. Both run after the HTTP server observation filter, so rejected requests still show up in
+http.server.requests
+*/
+
+@Configuration
+public class RateLimitConfig {
+
+    static final String DEVICES_URL_PATTERN = "/device-service/v1/devices/*";
+
+    @Bean
+    @ConditionalOnProperty(prefix = "devices.rate-limit", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean<DeviceRateLimitFilter> deviceRateLimitFilter(DeviceRateLimitProperties properties,
+                                                                               ObjectMapper objectMapper,
+                                                                               MeterRegistry meterRegistry) {
+        var registration = new FilterRegistrationBean<>(new DeviceRateLimitFilter(properties, objectMapper, meterRegistry));
+        registration.addUrlPatterns(DEVICES_URL_PATTERN);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "devices.concurrency-limit", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean<DeviceConcurrencyLimitFilter> deviceConcurrencyLimitFilter(
+            DeviceConcurrencyLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        var registration = new FilterRegistrationBean<>(
+                new DeviceConcurrencyLimitFilter(properties, objectMapper, meterRegistry));
+        registration.addUrlPatterns(DEVICES_URL_PATTERN);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 11);
+        return registration;
+    }
+}
@@ -0,0 +1,97 @@
+package org.hometask.devicesapi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hometask.devicesapi.datasource.ReplicaReadJpaDialect;
+import org.hometask.devicesapi.datasource.ReplicaRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Replaces the single datasource when replica urls are configured. Connections are fetched lazily, once the
+transaction has marked them read-only, so @Transactional(readOnly = true) service methods and Spring Data reads
+outside a write transaction go to the replicas while everything else, Flyway included, stays on the primary.
+The JPA dialect keeps those replica reads out of the second-level cache
+*/
+
+@Configuration
+@ConditionalOnExpression("!'${devices.datasource.replicas.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(DeviceReplicaProperties replicaProperties,
+                                                      DataSourceProperties properties,
+                                                      HikariDataSource primaryDataSource,
+                                                      MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.urls().size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (i + 1));
+            config.setJdbcUrl(replicaProperties.urls().get(i).trim());
+            config.setUsername(replicaProperties.username());
+            config.setPassword(replicaProperties.password());
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setMaximumPoolSize(replicaProperties.poolSize());
+            config.setConnectionTimeout(replicaProperties.connectionTimeout().toMillis());
+            // Same driver tuning (statement caching) and leak detection as the primary pool
+            config.setDataSourceProperties(primaryDataSource.getDataSourceProperties());
+            config.setLeakDetectionThreshold(primaryDataSource.getLeakDetectionThreshold());
+            config.setReadOnly(true);
+            // A replica that is down at startup must not keep the service from starting
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(replicas, primaryDataSource, replicaProperties.retryAfter());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    // Boot's own adapter with the dialect swapped; the transaction manager takes the dialect from it
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties properties) {
+        HibernateJpaDialect jpaDialect = new ReplicaReadJpaDialect();
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return jpaDialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) {
+            adapter.setDatabase(properties.getDatabase());
+        }
+        if (properties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        }
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+}
@@ -0,0 +1,14 @@
+package org.hometask.devicesapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+/*
+Enables @Retryable. The retry advice is ordered before the transaction advice,
+so every attempt runs in a fresh transaction and re-reads the current row
+*/
+
+@Configuration
+@EnableRetry
+public class RetryConfig {
+}
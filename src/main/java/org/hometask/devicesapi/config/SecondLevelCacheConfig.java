@@ -0,0 +1,65 @@
+package org.hometask.devicesapi.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/*
+Caffeine regions behind the Hibernate second-level cache, handed to Hibernate through JCache. Entities and query
+results are bounded and expire like the DTO cache, since writes made by other instances never reach them. The update
+timestamps region, against which Hibernate validates cached query results, must never lose entries and is unbounded
+(it holds one entry per table). Hibernate closes the manager when the EntityManagerFactory shuts down
+*/
+
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String DEVICE_REGION = "device";
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(DeviceSecondLevelCacheProperties properties) {
+        return hibernateProperties -> {
+            if (enabled(hibernateProperties, AvailableSettings.USE_SECOND_LEVEL_CACHE)
+                    || enabled(hibernateProperties, AvailableSettings.USE_QUERY_CACHE)) {
+                hibernateProperties.put(ConfigSettings.CACHE_MANAGER, createCacheManager(properties));
+            }
+        };
+    }
+
+    private static CacheManager createCacheManager(DeviceSecondLevelCacheProperties properties) {
+        // A manager per application context, so test contexts sharing a JVM never share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("devices-second-level-cache-" + UUID.randomUUID()),
+                        SecondLevelCacheConfig.class.getClassLoader());
+
+        cacheManager.createCache(DEVICE_REGION, region(properties.entityMaxSize(), properties.entityTtl()));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(properties.queryMaxSize(), properties.queryTtl()));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        return new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maxSize))
+                .setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+    }
+
+    private static boolean enabled(Map<String, Object> hibernateProperties, String setting) {
+        return Boolean.parseBoolean(String.valueOf(hibernateProperties.get(setting)));
+    }
+}
@@ -0,0 +1,41 @@
+package org.hometask.devicesapi.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hometask.devicesapi.datasource.SampledSqlLoggingListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/*
+Wraps the datasource the application uses (the routing proxy when replicas are configured) in a datasource-proxy
+that hands every executed statement to SampledSqlLoggingListener. Replaces spring.jpa.show-sql, which prints every
+statement synchronously to stdout
+*/
+
+@Configuration
+@ConditionalOnProperty(prefix = "devices.sql-logging", name = "enabled", matchIfMissing = true)
+public class SqlLoggingConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    static BeanPostProcessor sqlLoggingDataSourcePostProcessor(ObjectProvider<DeviceSqlLoggingProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && DATA_SOURCE_BEAN.equals(beanName)) {
+                    DeviceSqlLoggingProperties sqlLogging = properties.getObject();
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(DATA_SOURCE_BEAN)
+                            .listener(new SampledSqlLoggingListener(sqlLogging.sampleRate(), sqlLogging.slowThreshold()))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,32 +1,60 @@
 package org.hometask.devicesapi.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
-import org.hometask.devicesapi.dto.DeviceCreateRequest;
-import org.hometask.devicesapi.dto.DeviceDTO;
-import org.hometask.devicesapi.dto.DeviceUpdateRequest;
+import org.hometask.devicesapi.config.DeviceBatchProperties;
+import org.hometask.devicesapi.dto.*;
+import org.hometask.devicesapi.event.DeviceEventBroadcaster;
+import org.hometask.devicesapi.exception.BatchLimitExceededException;
 import org.hometask.devicesapi.exception.ErrorResponse;
 import org.hometask.devicesapi.mapper.DeviceMapper;
 import org.hometask.devicesapi.model.DeviceState;
 import org.hometask.devicesapi.service.DeviceService;
-import org.springframework.data.domain.Page;
+import org.hometask.devicesapi.stats.DeviceStatsTracker;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 @AllArgsConstructor
 @RestController
 @RequestMapping("/device-service/v1/devices")
 public class DeviceController {
 
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final DeviceService deviceService;
     private final DeviceMapper deviceMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final DeviceBatchProperties batchProperties;
+    private final DeviceEventBroadcaster eventBroadcaster;
+    private final DeviceStatsTracker statsTracker;
 
     @PostMapping
     @Operation(summary = "Create a new device")
@@ -40,19 +68,83 @@ public class DeviceController {
         return ResponseEntity.status(HttpStatus.CREATED).body(serviceResponse);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create devices in bulk",
+            description = "Validates every item, inserts the valid ones in JDBC batches and reports a result per item")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "413", description = "Too many items in one batch",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<DeviceBatchResponse> createDevices(@RequestBody List<DeviceCreateRequest> requests) {
+        checkBatchLimit(requests.size());
+        return ResponseEntity.ok(createBatch(requests));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Create devices in bulk from NDJSON",
+            description = "One device per line; malformed lines are reported as invalid items")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "413", description = "Too many items in one batch",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<DeviceBatchResponse> createDevicesFromNdjson(Reader body) throws IOException {
+        List<DeviceCreateRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(body)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                checkBatchLimit(requests.size() + 1);
+                requests.add(parseLine(line));
+            }
+        }
+        return ResponseEntity.ok(createBatch(requests));
+    }
+
+    @PostMapping("/state-transitions")
+    @Operation(summary = "Change the state of many devices",
+            description = "Moves the devices selected by ids or by brand to the target state in set-based updates "
+                    + "and reports an outcome per device. Devices that are IN_USE are left unchanged")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Transition processed, see per-device results"),
+            @ApiResponse(responseCode = "400", description = "Missing target state, or not exactly one of ids or brand"),
+            @ApiResponse(responseCode = "413", description = "Too many ids in one request",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<DeviceStateTransitionResponse> transitionStates(
+            @Valid @RequestBody DeviceStateTransitionRequest request) {
+        if (request.getIds() != null) {
+            checkBatchLimit(request.getIds().size());
+        }
+        var command = deviceMapper.toStateTransitionCommand(request);
+        return ResponseEntity.ok(deviceService.transitionStates(command));
+    }
+
     @PatchMapping("/{id}")
     @Operation(summary = "Update of device")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Device updated"),
             @ApiResponse(responseCode = "404", description = "Device not found"),
-            @ApiResponse(responseCode = "400", description = "Invalid update")
+            @ApiResponse(responseCode = "400", description = "Invalid update"),
+            @ApiResponse(responseCode = "409", description = "Concurrent modification persisted after retries",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current device version",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<DeviceDTO> updateDevice(
             @PathVariable Long id,
+            @Parameter(description = "ETag of the device version the update is based on")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody DeviceUpdateRequest request) {
         var updateCommand = deviceMapper.toUpdateCommand(request);
+        updateCommand.setExpectedVersion(DeviceETags.expectedVersion(ifMatch));
         var response = deviceService.updateDevice(id, updateCommand);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(DeviceETags.of(response.getVersion()))
+                .body(response);
     }
 
     @GetMapping("/{id}")
@@ -60,37 +152,153 @@ public class DeviceController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Device found",
                     content = @Content(schema = @Schema(implementation = DeviceDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Device unchanged since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Device not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<DeviceDTO> getDeviceById(
             @Parameter(description = "Device ID") @PathVariable Long id) {
         DeviceDTO response = deviceService.getDeviceById(id);
-        return ResponseEntity.ok(response);
+        // A matching If-None-Match is answered with 304 by Spring before the body is serialized
+        return ResponseEntity.ok()
+                .eTag(DeviceETags.of(response.getVersion()))
+                .body(response);
     }
 
     @GetMapping
-    @Operation(summary = "Get all devices", description = "Retrieves all devices or filters by brand/state")
+    @Operation(summary = "Get all devices",
+            description = "Retrieves devices matching every given filter: brand, state, name prefix and creation time range. "
+                    + "With If-None-Match, an unchanged page is answered with 304 from ids and versions alone")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Devices retrieved successfully")
+            @ApiResponse(responseCode = "200", description = "Devices retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or sort field",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<Page<DeviceDTO>> getDevices(
-            @RequestParam(required = false) String brand,
-            @RequestParam(required = false) DeviceState state,
+    public ResponseEntity<Slice<DeviceDTO>> getDevices(
+            @ParameterObject DeviceFilter filter,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sort,
+            @Parameter(description = "When false, skips the count query and returns a slice without totals")
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(description = "ETag of a previously received page")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // Polling clients revalidate against the ids and versions of the page before any full row is loaded
+        if (ifNoneMatch != null) {
+            String current = DeviceETags.ofPage(deviceService.getDeviceVersions(filter, page, size, sort, withTotal),
+                    DeviceVersion::getId, DeviceVersion::getVersion);
+            if (DeviceETags.notModified(ifNoneMatch, current)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+            }
+        }
+
+        Slice<DeviceDTO> devices = withTotal
+                ? deviceService.getDevices(filter, page, size, sort)
+                : deviceService.sliceDevices(filter, page, size, sort);
+        return ResponseEntity.ok()
+                .eTag(DeviceETags.ofPage(devices, DeviceDTO::getId, DeviceDTO::getVersion))
+                .body(devices);
+    }
+
+    @GetMapping(params = "after")
+    @Operation(summary = "Scroll devices by cursor",
+            description = "Keyset pagination: pass an empty 'after' to start, then the returned nextCursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Devices retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, filter, sort field or window size",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<CursorPage<DeviceDTO>> scrollDevices(
+            @ParameterObject DeviceFilter filter,
+            @Parameter(description = "Cursor returned as nextCursor by the previous call") @RequestParam String after,
+            @Parameter(description = "Window size, from 1 to devices.scroll.max-size")
+            @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String sort) {
+        CursorPage<DeviceDTO> devices = deviceService.scrollDevices(filter, after, size, sort);
+        return ResponseEntity.ok(devices);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search devices by name or brand",
+            description = "Substring and fuzzy word matches, best match first; pass the returned nextCursor as 'after' for more")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching devices retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Query too short or invalid cursor",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<CursorPage<DeviceDTO>> searchDevices(
+            @Parameter(description = "Text to look for in the name or brand") @RequestParam String q,
+            @Parameter(description = "Cursor returned as nextCursor by the previous call")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size, capped at devices.search.max-size")
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<DeviceDTO> devices = deviceService.searchDevices(q, after, size);
+        return ResponseEntity.ok(devices);
+    }
 
-        Page<DeviceDTO> devices;
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all devices",
+            description = "Streams every device as NDJSON ordered by id; gzip-encoded when the client accepts it")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed")
+    })
+    public ResponseEntity<StreamingResponseBody> exportDevices(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
 
-        if (brand != null) {
-            devices = deviceService.getDevicesByBrand(brand, page, size, sort);
-        } else if (state != null) {
-            devices = deviceService.getDevicesByState(state, page, size, sort);
-        } else {
-            devices = deviceService.getAllDevices(page, size, sort);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip
+                    ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE)
+                    : new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+            ObjectWriter writer = objectMapper.writerFor(DeviceDTO.class);
+            try (target) {
+                deviceService.exportDevices(device -> {
+                    try {
+                        target.write(writer.writeValueAsBytes(device));
+                        target.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        var response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
-        return ResponseEntity.ok(devices);
+        return response.body(body);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream device changes",
+            description = "Server-sent events for every committed create (created), update (updated) and delete (deleted). "
+                    + "Filters match devices before or after an update; deletes are sent to every subscriber. "
+                    + "Reconnect with Last-Event-ID to replay missed events; a reset event means they are gone and the list must be reloaded")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened")
+    })
+    public SseEmitter streamDevices(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @Parameter(description = "Id of the last event received before reconnecting")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return eventBroadcaster.subscribe(brand, state, lastEventId);
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get device counts",
+            description = "Counts per brand and state, served from memory. They follow every committed change "
+                    + "and are reconciled with the database periodically (see reconciledAt)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Counts retrieved")
+    })
+    public ResponseEntity<DeviceStats> getDeviceStats() {
+        return ResponseEntity.ok(statsTracker.getStats());
     }
 
     @DeleteMapping("/{id}")
@@ -107,4 +315,65 @@ public class DeviceController {
         deviceService.deleteDevice(id);
         return ResponseEntity.noContent().build();
     }
+
+    private DeviceBatchResponse createBatch(List<DeviceCreateRequest> requests) {
+        DeviceBatchItemResult[] results = new DeviceBatchItemResult[requests.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<DeviceCreateCommand> commands = new ArrayList<>();
+
+        for (int index = 0; index < requests.size(); index++) {
+            Map<String, String> errors = validateItem(requests.get(index));
+            if (errors.isEmpty()) {
+                validIndexes.add(index);
+                commands.add(deviceMapper.toCreateCommand(requests.get(index)));
+            } else {
+                results[index] = DeviceBatchItemResult.builder()
+                        .index(index)
+                        .status(DeviceBatchItemResult.Status.INVALID)
+                        .errors(errors)
+                        .build();
+            }
+        }
+
+        List<DeviceDTO> created = commands.isEmpty() ? List.of() : deviceService.createDevices(commands);
+        for (int i = 0; i < created.size(); i++) {
+            int index = validIndexes.get(i);
+            results[index] = DeviceBatchItemResult.builder()
+                    .index(index)
+                    .status(DeviceBatchItemResult.Status.CREATED)
+                    .device(created.get(i))
+                    .build();
+        }
+
+        return DeviceBatchResponse.builder()
+                .created(created.size())
+                .failed(requests.size() - created.size())
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private Map<String, String> validateItem(DeviceCreateRequest request) {
+        if (request == null) {
+            return Map.of("item", "Item is not a valid device object");
+        }
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<DeviceCreateRequest> violation : validator.validate(request)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    private DeviceCreateRequest parseLine(String line) {
+        try {
+            return objectMapper.readValue(line, DeviceCreateRequest.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private void checkBatchLimit(int size) {
+        if (size > batchProperties.maxItems()) {
+            throw new BatchLimitExceededException(size, batchProperties.maxItems());
+        }
+    }
 }
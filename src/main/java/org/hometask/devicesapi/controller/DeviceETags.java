@@ -0,0 +1,97 @@
+package org.hometask.devicesapi.controller;
+
+import org.hometask.devicesapi.exception.DeviceVersionMismatchException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/*
+Maps a device version to a strong ETag ("<version>") and back from an If-Match header, and derives the weak
+ETag of a list page from the ids and versions on it
+*/
+
+final class DeviceETags {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final int PAGE_TAG_BYTES = 16;
+
+    private DeviceETags() {
+    }
+
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /*
+    Returns the version a client expects, or null when there is no precondition (no header or "*").
+    Weak or malformed tags can never match strongly, so they fail the precondition
+    */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new DeviceVersionMismatchException("If-Match must be a single strong ETag returned by this API");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            throw new DeviceVersionMismatchException("If-Match must be a single strong ETag returned by this API");
+        }
+    }
+
+    /*
+    Digest of the page position, its totals and the id and version of every device on it. Every change to a device
+    bumps its version, so an equal digest means an equal JSON body, whichever of the two projections it came from.
+    The tag is weak because list pages are what response compression targets, and Tomcat leaves responses with a
+    strong ETag uncompressed (a strong tag would have to differ between the gzip and identity encodings)
+    */
+    static <T> String ofPage(Slice<T> slice, Function<T, Long> id, Function<T, Long> version) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * (4 + 2 * slice.getNumberOfElements()));
+        buffer.putLong(slice.getNumber()).putLong(slice.getSize()).putLong(slice.hasNext() ? 1 : 0);
+        buffer.putLong(slice instanceof Page<T> page ? page.getTotalElements() : -1);
+        for (T item : slice.getContent()) {
+            buffer.putLong(id.apply(item)).putLong(version.apply(item));
+        }
+
+        byte[] digest = sha256().digest(buffer.array());
+        return WEAK_PREFIX + "\"" + HexFormat.of().formatHex(digest, 0, PAGE_TAG_BYTES) + "\"";
+    }
+
+    /*
+    True when If-None-Match lists the tag or is "*". The comparison is weak, as If-None-Match requires, so a client
+    sending the tag back without its W/ prefix still matches
+    */
+    static boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (ANY.equals(tag) || stripWeakPrefix(tag).equals(stripWeakPrefix(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
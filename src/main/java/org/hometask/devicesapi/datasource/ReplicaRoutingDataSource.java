@@ -0,0 +1,104 @@
+package org.hometask.devicesapi.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Hands out connections of read-only transactions from the replicas in round-robin order. A replica that fails to
+hand out a connection is skipped for retryAfter and the next one is tried; when none is available the primary
+serves the read, so replica outages degrade to the single-database setup instead of failing requests
+*/
+
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<Replica> replicas;
+    private final DataSource primary;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(List<? extends DataSource> replicas, DataSource primary, Duration retryAfter) {
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.primary = primary;
+        this.retryAfterNanos = retryAfter.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection connect(ConnectionSource source) throws SQLException {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            try {
+                Connection connection = source.get(replica.dataSource);
+                replica.markUp();
+                return connection;
+            } catch (SQLException e) {
+                replica.markDown();
+                log.warn("Replica {} unavailable, skipping it for {} ms: {}",
+                        replica.dataSource, retryAfterNanos / 1_000_000, e.getMessage());
+            }
+        }
+        log.debug("No replica available, reading from the primary");
+        return source.get(primary);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    private final class Replica {
+
+        private final DataSource dataSource;
+        private volatile long downUntil;
+        private volatile boolean down;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable() {
+            return !down || System.nanoTime() - downUntil >= 0;
+        }
+
+        private void markDown() {
+            downUntil = System.nanoTime() + retryAfterNanos;
+            down = true;
+        }
+
+        private void markUp() {
+            if (down) {
+                down = false;
+                log.info("Replica {} is serving reads again", dataSource);
+            }
+        }
+    }
+}
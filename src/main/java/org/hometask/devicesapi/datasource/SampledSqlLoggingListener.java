@@ -0,0 +1,53 @@
+package org.hometask.devicesapi.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Logs executed statements as one key:value line each (time, success, type, batch size, query and bind parameters).
+Statements at or above the slow threshold go out at WARN; of the others only a random share is logged, at INFO.
+The line is only built once a statement is selected, so unsampled statements cost a random number
+*/
+
+@Slf4j
+public class SampledSqlLoggingListener implements QueryExecutionListener {
+
+    private final DefaultQueryLogEntryCreator entryCreator = new DefaultQueryLogEntryCreator();
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+
+    public SampledSqlLoggingListener(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThreshold == null || slowThreshold.isZero() ? Long.MAX_VALUE : slowThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() >= slowThresholdMillis) {
+            if (log.isWarnEnabled()) {
+                log.warn("Slow SQL {}", entry(execInfo, queryInfoList));
+            }
+        } else if (sampled() && log.isInfoEnabled()) {
+            log.info("SQL {}", entry(execInfo, queryInfoList));
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1 || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private String entry(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        return entryCreator.getLogEntry(execInfo, queryInfoList, true, true, false);
+    }
+}
@@ -0,0 +1,30 @@
+package org.hometask.devicesapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+One window of a keyset (seek) traversal. nextCursor is null on the last window. Search pages set truncated when the
+query matched more devices than are ranked, so the last window does not end the matches; other traversals omit it
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    private String nextCursor;
+
+    private int size;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean truncated;
+}
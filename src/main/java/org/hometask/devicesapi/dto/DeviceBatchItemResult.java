@@ -0,0 +1,32 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/*
+Outcome of a single item of a batch create, index is the item's position in the request
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceBatchItemResult {
+
+    public enum Status {
+        CREATED,
+        INVALID
+    }
+
+    private int index;
+
+    private Status status;
+
+    private DeviceDTO device;
+
+    private Map<String, String> errors;
+}
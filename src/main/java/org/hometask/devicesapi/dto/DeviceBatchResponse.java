@@ -0,0 +1,21 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceBatchResponse {
+
+    private int created;
+
+    private int failed;
+
+    private List<DeviceBatchItemResult> results;
+}
@@ -0,0 +1,32 @@
+package org.hometask.devicesapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+A committed change to one device, as pushed on GET /devices/stream.
+device is the state after the change (absent for DELETED), previous the state before an UPDATED or DELETED change
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeviceChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Type type;
+
+    private Long deviceId;
+
+    private DeviceDTO device;
+
+    private DeviceDTO previous;
+}
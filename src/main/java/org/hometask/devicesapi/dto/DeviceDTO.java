@@ -23,4 +23,6 @@ public class DeviceDTO {
     private DeviceState state;
 
     private OffsetDateTime creationTime;
+
+    private Long version;
 }
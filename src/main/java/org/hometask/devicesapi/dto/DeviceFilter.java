@@ -0,0 +1,39 @@
+package org.hometask.devicesapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hometask.devicesapi.model.DeviceState;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.OffsetDateTime;
+
+/*
+Optional criteria for listing devices; every criterion that is set narrows the result (AND)
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceFilter {
+
+    @Schema(description = "Exact brand")
+    private String brand;
+
+    @Schema(description = "Exact state")
+    private DeviceState state;
+
+    @Schema(description = "Case-sensitive prefix of the device name")
+    private String namePrefix;
+
+    @Schema(description = "Created at or after this instant (ISO-8601)")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime createdFrom;
+
+    @Schema(description = "Created strictly before this instant (ISO-8601)")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime createdTo;
+}
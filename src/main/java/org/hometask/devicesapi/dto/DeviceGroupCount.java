@@ -0,0 +1,24 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hometask.devicesapi.model.DeviceState;
+
+/*
+Number of devices with one brand and state, as counted by the database
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceGroupCount {
+
+    private String brand;
+
+    private DeviceState state;
+
+    private Long count;
+}
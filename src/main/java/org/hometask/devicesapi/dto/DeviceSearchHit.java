@@ -0,0 +1,21 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+A device matching a search query with its rank, the better of the name and brand word similarity (0 to 1)
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceSearchHit {
+
+    private DeviceDTO device;
+
+    private float rank;
+}
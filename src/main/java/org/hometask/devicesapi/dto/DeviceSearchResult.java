@@ -0,0 +1,24 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+One page of search hits. truncated is set when the query matched at least devices.search.candidate-limit devices,
+so only that many of them were ranked
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceSearchResult {
+
+    private List<DeviceSearchHit> hits;
+
+    private boolean truncated;
+}
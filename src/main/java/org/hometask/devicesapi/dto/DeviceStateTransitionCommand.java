@@ -0,0 +1,26 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hometask.devicesapi.model.DeviceState;
+
+import java.util.List;
+
+/*
+Command to move the devices with the given ids, or all devices of a brand, to one state
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStateTransitionCommand {
+
+    private List<Long> ids;
+
+    private String brand;
+
+    private DeviceState state;
+}
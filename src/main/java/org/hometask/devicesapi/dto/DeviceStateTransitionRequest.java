@@ -0,0 +1,38 @@
+package org.hometask.devicesapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hometask.devicesapi.model.DeviceState;
+
+import java.util.List;
+
+/*
+Request to move many devices to one state, selected either by their ids or by brand
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStateTransitionRequest {
+
+    private List<@NotNull(message = "Ids must not contain null") Long> ids;
+
+    private String brand;
+
+    @NotNull(message = "Target state is required")
+    private DeviceState state;
+
+    @JsonIgnore
+    @AssertTrue(message = "Exactly one of ids or brand is required")
+    public boolean isSelectionValid() {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byBrand = brand != null && !brand.isBlank();
+        return byIds != byBrand;
+    }
+}
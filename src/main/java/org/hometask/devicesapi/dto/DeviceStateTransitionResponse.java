@@ -0,0 +1,23 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStateTransitionResponse {
+
+    private int updated;
+
+    private int unchanged;
+
+    private int failed;
+
+    private List<DeviceStateTransitionResult> results;
+}
@@ -0,0 +1,34 @@
+package org.hometask.devicesapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+Outcome of a state transition for one device; version is the device version after the request
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeviceStateTransitionResult {
+
+    public enum Status {
+        UPDATED,
+        UNCHANGED,
+        IN_USE,
+        NOT_FOUND
+    }
+
+    private Long id;
+
+    private Status status;
+
+    private Long version;
+
+    private String message;
+}
@@ -0,0 +1,31 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hometask.devicesapi.model.DeviceState;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/*
+Device counts for GET /devices/stats; reconciledAt is the last time the counts were checked against the database
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStats {
+
+    private long total;
+
+    private Map<DeviceState, Long> byState;
+
+    private Map<String, Long> byBrand;
+
+    private Map<String, Map<DeviceState, Long>> byBrandAndState;
+
+    private OffsetDateTime reconciledAt;
+}
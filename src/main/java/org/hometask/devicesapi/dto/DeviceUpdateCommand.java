@@ -22,4 +22,7 @@ public class DeviceUpdateCommand {
     private String brand;
 
     private DeviceState state;
+
+    // Version taken from the If-Match header, null when the client did not send one
+    private Long expectedVersion;
 }
@@ -0,0 +1,21 @@
+package org.hometask.devicesapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+Id and version of a device, enough to tell whether a list page changed without loading its rows
+*/
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceVersion {
+
+    private Long id;
+
+    private Long version;
+}
@@ -0,0 +1,262 @@
+package org.hometask.devicesapi.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.hometask.devicesapi.config.DeviceStreamProperties;
+import org.hometask.devicesapi.dto.DeviceChangeEvent;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.model.DeviceState;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+Fans committed device changes out to GET /devices/stream subscribers.
+Every event is serialized once and numbered; subscribers get it through a bounded queue drained on their own task,
+so a slow client is disconnected instead of holding up the others or the committing thread
+*/
+
+@Slf4j
+@Component
+public class DeviceEventBroadcaster implements DisposableBean {
+
+    static final String RESET_EVENT = "reset";
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final DeviceStreamProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Executor sender;
+
+    private final Object lock = new Object();
+    private final Deque<Frame> history = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private long lastEventId;
+
+    @Autowired
+    public DeviceEventBroadcaster(DeviceStreamProperties properties, ObjectMapper objectMapper) {
+        this(properties, objectMapper, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    DeviceEventBroadcaster(DeviceStreamProperties properties, ObjectMapper objectMapper, Executor sender) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.sender = sender;
+    }
+
+    /*
+    Runs only after the publishing transaction committed, so rolled back or retried attempts are never pushed
+    */
+    @TransactionalEventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        publish(event);
+    }
+
+    public SseEmitter subscribe(String brand, DeviceState state, Long lastSeenId) {
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        subscribe(emitter, brand, state, lastSeenId);
+        return emitter;
+    }
+
+    void subscribe(SseEmitter emitter, String brand, DeviceState state, Long lastSeenId) {
+        Subscriber subscriber = new Subscriber(emitter, brand, state);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        synchronized (lock) {
+            if (lastSeenId != null) {
+                replay(subscriber, lastSeenId);
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.scheduleDrain();
+    }
+
+    void publish(DeviceChangeEvent event) {
+        synchronized (lock) {
+            Frame frame = new Frame(++lastEventId, event, serialize(lastEventId, event));
+            history.addLast(frame);
+            if (history.size() > properties.replaySize()) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    /*
+    Keeps idle connections open through proxies and finds clients that went away without closing
+    */
+    @Scheduled(fixedDelayString = "${devices.stream.heartbeat:PT15S}")
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(HEARTBEAT);
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /*
+    Queues the missed events after lastSeenId. When they are no longer all retained (or there are more than the
+    subscriber may buffer, or the id is from before a restart) the client gets a reset event and should reload instead
+    */
+    private void replay(Subscriber subscriber, long lastSeenId) {
+        long oldestRetained = history.isEmpty() ? lastEventId + 1 : history.peekFirst().id();
+        boolean gap = lastSeenId < oldestRetained - 1 || lastSeenId > lastEventId;
+
+        List<Frame> missed = new ArrayList<>();
+        if (!gap) {
+            for (Frame frame : history) {
+                if (frame.id() > lastSeenId && subscriber.matches(frame.event())) {
+                    missed.add(frame);
+                }
+            }
+        }
+
+        if (gap || missed.size() > properties.bufferSize()) {
+            subscriber.enqueue(SseEmitter.event()
+                    .id(String.valueOf(lastEventId))
+                    .name(RESET_EVENT)
+                    .data("Missed events are no longer available, reload the devices")
+                    .build());
+            return;
+        }
+        missed.forEach(subscriber::offer);
+    }
+
+    private Set<DataWithMediaType> serialize(long id, DeviceChangeEvent event) {
+        try {
+            return SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(objectMapper.writeValueAsString(event))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize device event", e);
+        }
+    }
+
+    private record Frame(long id, DeviceChangeEvent event, Set<DataWithMediaType> data) {
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String brand;
+        private final DeviceState state;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, String brand, DeviceState state) {
+            this.emitter = emitter;
+            this.brand = brand;
+            this.state = state;
+            // One slot on top of the buffer for a reset or heartbeat
+            this.queue = new ArrayBlockingQueue<>(properties.bufferSize() + 1);
+        }
+
+        /*
+        An update matches when the device entered or left the filtered set, so dashboards also see devices
+        moving out of their view; a delete matches on the removed device, or reaches everyone when it is unknown
+        */
+        private boolean matches(DeviceChangeEvent event) {
+            if (event.getType() == DeviceChangeEvent.Type.DELETED) {
+                return event.getPrevious() == null || matches(event.getPrevious());
+            }
+            return matches(event.getDevice()) || (event.getPrevious() != null && matches(event.getPrevious()));
+        }
+
+        private boolean matches(DeviceDTO device) {
+            return (brand == null || brand.equals(device.getBrand()))
+                    && (state == null || state == device.getState());
+        }
+
+        private void offer(Frame frame) {
+            if (matches(frame.event())) {
+                enqueue(frame.data());
+            }
+        }
+
+        private void enqueue(Set<DataWithMediaType> data) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(data)) {
+                log.warn("Disconnecting device stream subscriber that fell {} events behind", queue.size());
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> next;
+                while (!closed && (next = queue.poll()) != null) {
+                    emitter.send(next);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Device stream subscriber went away: {}", e.getMessage());
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // An event queued between the last poll and releasing the flag would otherwise wait for the next one
+            if (!closed) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            if (!closed) {
+                detach();
+                emitter.complete();
+            }
+        }
+
+        private void detach() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
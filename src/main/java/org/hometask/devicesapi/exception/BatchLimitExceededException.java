@@ -0,0 +1,7 @@
+package org.hometask.devicesapi.exception;
+
+public class BatchLimitExceededException extends RuntimeException {
+    public BatchLimitExceededException(long size, int maxItems) {
+        super("Batch of %d items exceeds the limit of %d items".formatted(size, maxItems));
+    }
+}
@@ -0,0 +1,12 @@
+package org.hometask.devicesapi.exception;
+
+public class DeviceVersionMismatchException extends RuntimeException {
+    public DeviceVersionMismatchException(String message) {
+        super(message);
+    }
+
+    public DeviceVersionMismatchException(Long deviceId, Long expectedVersion, Long currentVersion) {
+        super("Device with id %d is at version %d, but version %d was expected"
+                .formatted(deviceId, currentVersion, expectedVersion));
+    }
+}
@@ -0,0 +1,7 @@
+package org.hometask.devicesapi.exception;
+
+public class InvalidPageSizeException extends RuntimeException {
+    public InvalidPageSizeException(int maxSize) {
+        super("Page size must be between 1 and " + maxSize);
+    }
+}
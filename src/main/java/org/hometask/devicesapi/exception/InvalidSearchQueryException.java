@@ -0,0 +1,7 @@
+package org.hometask.devicesapi.exception;
+
+public class InvalidSearchQueryException extends RuntimeException {
+    public InvalidSearchQueryException(String message) {
+        super(message);
+    }
+}
@@ -5,6 +5,7 @@ import org.hometask.devicesapi.model.DeviceEntity;
 import org.hometask.devicesapi.model.DeviceState;
 import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 
 import java.time.OffsetDateTime;
@@ -12,10 +13,13 @@ import java.time.OffsetDateTime;
 @Mapper(componentModel = "spring")
 public interface DeviceMapper {
 
+    @Mapping(target = "version", ignore = true)
     DeviceEntity toEntity(DeviceCreateCommand command);
     DeviceDTO toDTO(DeviceEntity device);
     DeviceCreateCommand toCreateCommand(DeviceCreateRequest request);
+    @Mapping(target = "expectedVersion", ignore = true)
     DeviceUpdateCommand toUpdateCommand(DeviceUpdateRequest request);
+    DeviceStateTransitionCommand toStateTransitionCommand(DeviceStateTransitionRequest request);
 
     @AfterMapping
     default void addExtraFields(DeviceCreateRequest request, @MappingTarget DeviceCreateCommand command) {
@@ -0,0 +1,53 @@
+package org.hometask.devicesapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/*
+Times every DeviceService operation as device.service.operation{operation, outcome, exception}.
+Runs outermost, so cache hits and update retries are part of the measured latency
+*/
+
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class DeviceServiceMetricsAspect {
+
+    public static final String METRIC_NAME = "device.service.operation";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * org.hometask.devicesapi.service.DeviceService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String operation = joinPoint.getSignature().getName();
+        try {
+            Object result = joinPoint.proceed();
+            sample.stop(timer(operation, "success", NONE));
+            return result;
+        } catch (Throwable ex) {
+            sample.stop(timer(operation, "failure", ex.getClass().getSimpleName()));
+            throw ex;
+        }
+    }
+
+    private Timer timer(String operation, String outcome, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Latency of DeviceService operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -2,7 +2,10 @@ package org.hometask.devicesapi.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hometask.devicesapi.config.SecondLevelCacheConfig;
 
 import java.time.OffsetDateTime;
 
@@ -12,9 +15,13 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "device")
+// Read-write keeps concurrent loads from caching a device while an update of it is in flight
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.DEVICE_REGION)
 public class DeviceEntity {
+    // Pooled sequence allocation keeps JDBC insert batching possible, which IDENTITY disables
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "device_id_seq")
+    @SequenceGenerator(name = "device_id_seq", sequenceName = "device_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -31,4 +38,9 @@ public class DeviceEntity {
     @Column(nullable = false, updatable = false)
     private OffsetDateTime creationTime;
 
+    // Bumped by Hibernate on every update; a stale version fails the UPDATE instead of overwriting
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
 }
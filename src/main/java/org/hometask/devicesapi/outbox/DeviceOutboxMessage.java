@@ -0,0 +1,10 @@
+package org.hometask.devicesapi.outbox;
+
+import java.time.OffsetDateTime;
+
+/*
+One relayed outbox row. payload is the DeviceChangeEvent as JSON; id orders the messages of one relay batch
+*/
+
+public record DeviceOutboxMessage(long id, long deviceId, String eventType, String payload, OffsetDateTime createdAt) {
+}
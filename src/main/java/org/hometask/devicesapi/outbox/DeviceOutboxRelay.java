@@ -0,0 +1,134 @@
+package org.hometask.devicesapi.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hometask.devicesapi.config.DeviceOutboxProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+Moves device_outbox rows to the DeviceOutboxSink in id order. Each batch is locked with FOR UPDATE SKIP LOCKED,
+published and deleted in one transaction, so several instances can relay side by side without sending a row twice;
+a failing sink rolls the batch back and it is retried on the next poll (at-least-once delivery)
+*/
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "devices.outbox.relay", name = "enabled", matchIfMissing = true)
+public class DeviceOutboxRelay {
+
+    static final String SELECT_BATCH_SQL = """
+            SELECT id, device_id, event_type, payload, created_at
+            FROM device_outbox
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+    static final String DELETE_SQL = "DELETE FROM device_outbox WHERE id = ?";
+    static final String OLDEST_SQL = "SELECT created_at FROM device_outbox ORDER BY id LIMIT 1";
+
+    private static final RowMapper<DeviceOutboxMessage> MESSAGE_MAPPER = (rs, rowNum) -> new DeviceOutboxMessage(
+            rs.getLong("id"),
+            rs.getLong("device_id"),
+            rs.getString("event_type"),
+            rs.getString("payload"),
+            rs.getObject("created_at", OffsetDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DeviceOutboxSink sink;
+    private final DeviceOutboxProperties properties;
+
+    private final Timer lagTimer;
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final AtomicReference<OffsetDateTime> oldestPending = new AtomicReference<>();
+
+    public DeviceOutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             DeviceOutboxSink sink, DeviceOutboxProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sink = sink;
+        this.properties = properties;
+
+        this.lagTimer = Timer.builder("device.outbox.relay.lag")
+                .description("Time from a device change to its event being handed to the sink")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("device.outbox.relay.published")
+                .description("Device events handed to the sink")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("device.outbox.relay.failures")
+                .description("Relay runs that failed and left their batch for the next poll")
+                .register(meterRegistry);
+        Gauge.builder("device.outbox.oldest.age", this, DeviceOutboxRelay::oldestPendingAgeSeconds)
+                .description("Age of the oldest event not yet relayed, as of the last poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${devices.outbox.poll-interval:PT1S}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == properties.batchSize());
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.warn("Device outbox relay failed, the batch will be retried: {}", e.getMessage());
+        }
+        refreshOldestPending();
+    }
+
+    int relayBatch() {
+        List<DeviceOutboxMessage> messages = transactionTemplate.execute(status -> {
+            List<DeviceOutboxMessage> batch = jdbcTemplate.query(SELECT_BATCH_SQL, MESSAGE_MAPPER, properties.batchSize());
+            if (batch.isEmpty()) {
+                return batch;
+            }
+            try {
+                sink.publish(batch);
+            } catch (Exception e) {
+                throw new IllegalStateException("Sink rejected " + batch.size() + " device events", e);
+            }
+            jdbcTemplate.batchUpdate(DELETE_SQL, batch.stream().map(message -> new Object[]{message.id()}).toList());
+            return batch;
+        });
+
+        OffsetDateTime now = OffsetDateTime.now();
+        for (DeviceOutboxMessage message : messages) {
+            lagTimer.record(Duration.between(message.createdAt(), now));
+        }
+        publishedCounter.increment(messages.size());
+        return messages.size();
+    }
+
+    private void refreshOldestPending() {
+        try {
+            oldestPending.set(jdbcTemplate.query(OLDEST_SQL, (rs, rowNum) -> rs.getObject(1, OffsetDateTime.class))
+                    .stream().findFirst().orElse(null));
+        } catch (RuntimeException e) {
+            // Keep the last known value, so the reported age keeps growing while the database is unreachable
+            log.debug("Cannot read the oldest device outbox row: {}", e.getMessage());
+        }
+    }
+
+    private double oldestPendingAgeSeconds() {
+        OffsetDateTime oldest = oldestPending.get();
+        return oldest == null ? 0 : Duration.between(oldest, OffsetDateTime.now()).toMillis() / 1000.0;
+    }
+}
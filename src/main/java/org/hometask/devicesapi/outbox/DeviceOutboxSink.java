@@ -0,0 +1,13 @@
+package org.hometask.devicesapi.outbox;
+
+import java.util.List;
+
+/*
+Destination of relayed device events. publish must either accept the whole batch or throw;
+on failure the rows stay in the outbox and are offered again, so sinks have to tolerate duplicates
+*/
+
+public interface DeviceOutboxSink {
+
+    void publish(List<DeviceOutboxMessage> messages) throws Exception;
+}
@@ -0,0 +1,72 @@
+package org.hometask.devicesapi.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hometask.devicesapi.dto.DeviceChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Records every device change in device_outbox within the transaction that makes the change, so the change
+and its event commit or roll back together. Rows of one transaction are inserted as a single JDBC batch right
+before commit, which keeps bulk creates to one extra round trip
+*/
+
+@Component
+@RequiredArgsConstructor
+public class DeviceOutboxWriter {
+
+    static final String INSERT_SQL =
+            "INSERT INTO device_outbox (device_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Device changes must be recorded inside a transaction");
+        }
+        pendingRows().add(new Object[]{
+                event.getDeviceId(), event.getType().name(), serialize(event), OffsetDateTime.now()
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> pendingRows() {
+        List<Object[]> rows = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (rows == null) {
+            List<Object[]> newRows = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, newRows);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, newRows);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DeviceOutboxWriter.this);
+                }
+            });
+            rows = newRows;
+        }
+        return rows;
+    }
+
+    private String serialize(DeviceChangeEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize device event", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.hometask.devicesapi.outbox;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+Appends every relayed event as one NDJSON line {"id": <outbox id>, "event": <payload>}, a whole batch per write.
+The outbox id lets readers drop the duplicates a retried batch can produce
+*/
+
+public class FileDeviceOutboxSink implements DeviceOutboxSink {
+
+    private final Path file;
+
+    public FileDeviceOutboxSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(List<DeviceOutboxMessage> messages) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            for (DeviceOutboxMessage message : messages) {
+                writer.write("{\"id\":" + message.id() + ",\"event\":" + message.payload() + "}\n");
+            }
+        }
+    }
+}
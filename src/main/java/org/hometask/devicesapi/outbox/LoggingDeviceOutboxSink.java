@@ -0,0 +1,14 @@
+package org.hometask.devicesapi.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+@Slf4j
+public class LoggingDeviceOutboxSink implements DeviceOutboxSink {
+
+    @Override
+    public void publish(List<DeviceOutboxMessage> messages) {
+        messages.forEach(message -> log.info("Device event {} {}: {}", message.id(), message.eventType(), message.payload()));
+    }
+}
@@ -0,0 +1,106 @@
+package org.hometask.devicesapi.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Limit on requests in flight that follows the latency gradient: every window, the average latency of the window is
+compared with a slowly moving long-term average. While latency holds, the limit grows by about its square root;
+once requests queue up somewhere (the connection pool, the database) latency rises and the limit shrinks in
+proportion, down to half per window. Counters are striped (LongAdder, LongAccumulator) and only the thread that
+claims the window recomputes the limit, so admission and release never wait on each other
+*/
+
+final class AdaptiveConcurrencyLimit {
+
+    // Latency may rise this much over the long-term average before the limit shrinks
+    static final double TOLERANCE = 1.5;
+    static final double SMOOTHING = 0.2;
+    static final double LONG_TERM_WEIGHT = 0.05;
+    static final int MIN_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder windowLatencyNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAccumulator windowPeakInFlight = new LongAccumulator(Math::max, 0);
+    private final AtomicLong windowEnd;
+    private volatile double limit;
+    // Only written by the thread that claimed the window
+    private double longTermLatencyNanos;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long windowNanos, long nowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowEnd = new AtomicLong(nowNanos + windowNanos);
+    }
+
+    boolean tryAcquire() {
+        inFlight.increment();
+        long current = inFlight.sum();
+        if (current > (long) limit) {
+            inFlight.decrement();
+            return false;
+        }
+        windowPeakInFlight.accumulate(current);
+        return true;
+    }
+
+    /*
+    Releases a request that completed on its own thread and feeds its latency into the current window
+    */
+    void release(long latencyNanos, long nowNanos) {
+        inFlight.decrement();
+        windowLatencyNanos.add(latencyNanos);
+        windowSamples.increment();
+
+        long end = windowEnd.get();
+        if (nowNanos >= end && windowEnd.compareAndSet(end, nowNanos + windowNanos)) {
+            update();
+        }
+    }
+
+    /*
+    Releases a request without a latency sample, e.g. one that continues asynchronously
+    */
+    void release() {
+        inFlight.decrement();
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    long inFlight() {
+        return inFlight.sum();
+    }
+
+    private void update() {
+        if (windowSamples.sum() < MIN_SAMPLES) {
+            return;
+        }
+        long samples = windowSamples.sumThenReset();
+        double latency = (double) windowLatencyNanos.sumThenReset() / samples;
+
+        if (longTermLatencyNanos == 0) {
+            longTermLatencyNanos = latency;
+        } else {
+            longTermLatencyNanos = longTermLatencyNanos * (1 - LONG_TERM_WEIGHT) + latency * LONG_TERM_WEIGHT;
+        }
+
+        double current = limit;
+        // Latency of a mostly idle service says nothing about how far the limit could go
+        if (windowPeakInFlight.getThenReset() < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longTermLatencyNanos / latency));
+        double target = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
@@ -0,0 +1,136 @@
+package org.hometask.devicesapi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hometask.devicesapi.config.DeviceConcurrencyLimitProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+Sheds device requests with 503 and Retry-After once more are in flight than the adaptive limit allows, so a burst
+queues at the door instead of in the connection pool where it would slow down every request. An export goes async
+but reads from the pool until it has streamed every device, so it keeps its slot until the async request completes.
+The device stream only waits for events and holds no connection, so it frees its slot when the servlet thread returns
+*/
+
+public class DeviceConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+    private final long retryAfterNanos;
+    private final AdaptiveConcurrencyLimit limit;
+    private final Map<DeviceEndpointClass, Counter> rejected = new EnumMap<>(DeviceEndpointClass.class);
+
+    public DeviceConcurrencyLimitFilter(DeviceConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+                                        MeterRegistry meterRegistry) {
+        this(properties, objectMapper, meterRegistry, new AdaptiveConcurrencyLimit(properties.initialLimit(),
+                properties.minLimit(), properties.maxLimit(), properties.window().toNanos(), System.nanoTime()));
+    }
+
+    DeviceConcurrencyLimitFilter(DeviceConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry, AdaptiveConcurrencyLimit limit) {
+        this.objectMapper = objectMapper;
+        this.retryAfterNanos = properties.retryAfter().toNanos();
+        this.limit = limit;
+
+        for (DeviceEndpointClass endpoint : DeviceEndpointClass.values()) {
+            rejected.put(endpoint, Counter.builder("device.requests.rejected")
+                    .description("Device requests turned away before reaching the controller")
+                    .tag("reason", "concurrency-limit")
+                    .tag("endpoint", DeviceRateLimitFilter.tagValue(endpoint))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("device.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive limit of device requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("device.concurrency.inflight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Device requests in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!limit.tryAcquire()) {
+            rejected.get(DeviceEndpointClass.of(request)).increment();
+            LimitResponses.reject(request, response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many requests in flight, retry later", retryAfterNanos);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                if (isEventStream(request)) {
+                    limit.release();
+                } else {
+                    request.getAsyncContext().addListener(new SlotReleasingListener(limit));
+                }
+            } else {
+                long now = System.nanoTime();
+                limit.release(now - start, now);
+            }
+        }
+    }
+
+    // The stream's headers are only written with its first event, so the handler's produces condition tells it apart
+    private static boolean isEventStream(HttpServletRequest request) {
+        return request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE) instanceof Set<?> mediaTypes
+                && mediaTypes.contains(MediaType.TEXT_EVENT_STREAM);
+    }
+
+    // A timed out or failed request is completed afterwards as well; the flag keeps the slot from being freed twice
+    private static final class SlotReleasingListener implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private SlotReleasingListener(AdaptiveConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        // A new async cycle drops the listeners of the previous one, so the slot follows the request into it
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.hometask.devicesapi.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/*
+Groups device endpoints by cost for rate limiting: writes (POST, PATCH, DELETE), point reads (GET /devices/{id})
+and everything else that reads, such as list pages, scrolling, export and stats
+*/
+
+public enum DeviceEndpointClass {
+    WRITE,
+    LIST,
+    READ;
+
+    public static DeviceEndpointClass of(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return WRITE;
+        }
+        String path = request.getRequestURI();
+        int lastSlash = path.lastIndexOf('/');
+        return isNumber(path, lastSlash + 1) ? READ : LIST;
+    }
+
+    private static boolean isNumber(String path, int from) {
+        if (from >= path.length()) {
+            return false;
+        }
+        for (int i = from; i < path.length(); i++) {
+            if (!Character.isDigit(path.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
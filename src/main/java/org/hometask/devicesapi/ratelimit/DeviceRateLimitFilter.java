@@ -0,0 +1,93 @@
+package org.hometask.devicesapi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hometask.devicesapi.config.DeviceRateLimitProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+Per-client token buckets for each endpoint class, so a client flooding one kind of request is answered with 429
+and Retry-After while its other requests and every other client keep going. Buckets of idle clients expire once
+they would have refilled anyway. Clients are keyed on their remote address unless a client header is configured:
+any caller can send a fresh header value to get a fresh bucket, so it is only trusted when a gateway in front of the
+service sets it
+*/
+
+public class DeviceRateLimitFilter extends OncePerRequestFilter {
+
+    private final DeviceRateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<DeviceEndpointClass, DeviceRateLimitProperties.Limit> limits = new EnumMap<>(DeviceEndpointClass.class);
+    private final Map<DeviceEndpointClass, Cache<String, TokenBucket>> buckets = new EnumMap<>(DeviceEndpointClass.class);
+    private final Map<DeviceEndpointClass, Counter> rejected = new EnumMap<>(DeviceEndpointClass.class);
+
+    public DeviceRateLimitFilter(DeviceRateLimitProperties properties, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+
+        limits.put(DeviceEndpointClass.WRITE, properties.writes());
+        limits.put(DeviceEndpointClass.LIST, properties.lists());
+        limits.put(DeviceEndpointClass.READ, properties.reads());
+        limits.forEach((endpoint, limit) -> {
+            Duration refill = Duration.ofNanos((long) (limit.capacity() / limit.perSecond() * 1_000_000_000L));
+            buckets.put(endpoint, Caffeine.newBuilder()
+                    .maximumSize(properties.maxClients())
+                    .expireAfterAccess(refill.compareTo(Duration.ofSeconds(1)) < 0 ? Duration.ofSeconds(1) : refill)
+                    .build());
+            rejected.put(endpoint, Counter.builder("device.requests.rejected")
+                    .description("Device requests turned away before reaching the controller")
+                    .tag("reason", "rate-limit")
+                    .tag("endpoint", tagValue(endpoint))
+                    .register(meterRegistry));
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        DeviceEndpointClass endpoint = DeviceEndpointClass.of(request);
+        DeviceRateLimitProperties.Limit limit = limits.get(endpoint);
+        long now = System.nanoTime();
+
+        TokenBucket bucket = buckets.get(endpoint)
+                .get(clientKey(request), key -> new TokenBucket(limit.capacity(), limit.perSecond(), now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            rejected.get(endpoint).increment();
+            LimitResponses.reject(request, response, objectMapper, HttpStatus.TOO_MANY_REQUESTS,
+                    "Rate limit exceeded for " + tagValue(endpoint) + " requests", waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (StringUtils.hasText(properties.clientHeader())) {
+            String client = request.getHeader(properties.clientHeader());
+            if (StringUtils.hasText(client)) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    static String tagValue(DeviceEndpointClass endpoint) {
+        return endpoint.name().toLowerCase(Locale.ROOT);
+    }
+}
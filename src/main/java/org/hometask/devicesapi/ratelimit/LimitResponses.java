@@ -0,0 +1,35 @@
+package org.hometask.devicesapi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hometask.devicesapi.exception.ErrorResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+Writes the ErrorResponse body and Retry-After header of a request turned away before it reached DeviceController
+*/
+
+final class LimitResponses {
+
+    private LimitResponses() {
+    }
+
+    static void reject(HttpServletRequest request, HttpServletResponse response, ObjectMapper objectMapper,
+                       HttpStatus status, String message, long retryAfterNanos) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(retryAfterNanos)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ErrorResponse.of(status.value(), status.getReasonPhrase(), message, request.getRequestURI()));
+    }
+
+    static long retryAfterSeconds(long retryAfterNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+}
@@ -0,0 +1,39 @@
+package org.hometask.devicesapi.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Token bucket kept as a single theoretical arrival time (the generic cell rate algorithm): each request pushes it
+one refill interval further, and a request is allowed while it stays within capacity intervals of now. Taking a
+token is one compare-and-set, so the bucket needs neither a lock nor a refill thread
+*/
+
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long capacity, double perSecond, long nowNanos) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burstNanos = capacity * intervalNanos;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /*
+    Takes a token and returns 0, or returns the nanoseconds until one will be available
+    */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + intervalNanos;
+            long waitNanos = next - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.hometask.devicesapi.repository;
+
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.dto.DeviceSearchResult;
+import org.hometask.devicesapi.dto.DeviceVersion;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.hometask.devicesapi.model.DeviceState;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Optional;
+
+/*
+Filtered list queries that project straight into DeviceDTO or DeviceVersion, and statements Spring Data cannot derive
+*/
+
+public interface DeviceQueryRepository {
+
+    Page<DeviceDTO> findDtoPage(DeviceFilter filter, Pageable pageable);
+
+    // Fetches size + 1 rows to compute hasNext and never issues a count query
+    Slice<DeviceDTO> findDtoSlice(DeviceFilter filter, Pageable pageable);
+
+    // The same pages reduced to id and version, to check whether a page changed without loading its rows
+    Page<DeviceVersion> findVersionPage(DeviceFilter filter, Pageable pageable);
+
+    Slice<DeviceVersion> findVersionSlice(DeviceFilter filter, Pageable pageable);
+
+    // Devices whose name or brand contains the query or matches one of its words closely, best rank first, then by id.
+    // At most candidates matches are ranked, and the result tells when that cap was reached; with afterRank and
+    // afterId, continues after that hit
+    DeviceSearchResult search(String query, int candidates, Float afterRank, Long afterId, int limit);
+
+    // Conditional delete in one statement, so the state guard and the delete cannot interleave with an update.
+    // Returns the deleted row (detached), or empty when the device is missing or in the given state
+    Optional<DeviceEntity> deleteByIdAndStateNot(Long id, DeviceState state);
+}
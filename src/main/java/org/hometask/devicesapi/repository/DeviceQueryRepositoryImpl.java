@@ -0,0 +1,233 @@
+package org.hometask.devicesapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.dto.DeviceSearchHit;
+import org.hometask.devicesapi.dto.DeviceSearchResult;
+import org.hometask.devicesapi.dto.DeviceVersion;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.hometask.devicesapi.model.DeviceState;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+class DeviceQueryRepositoryImpl implements DeviceQueryRepository {
+
+    // PostgreSQL RETURNING reports what was removed without a lookup before the delete
+    static final String DELETE_RETURNING_SQL =
+            "DELETE FROM device WHERE id = :id AND state <> :state RETURNING *";
+
+    /*
+    The trigram indexes on name and brand find the matches, and every match is ranked, so the best hit is returned
+    whatever its id. word_similarity scores the closest run of words in the name or brand, which suits typeahead
+    input. A query made of words most devices share (say "dev") would rank nearly every row, so at most :candidates
+    matches are ranked, the first ones the index finds; the matches column tells the caller that the cap was reached.
+    The keyset condition applies after ranking, so every page is cut from the same ranked matches
+    */
+    static final String SEARCH_SQL = """
+            SELECT id, name, brand, state, creation_time, version, rank, matches
+            FROM (
+                SELECT found.*,
+                       greatest(word_similarity(:query, found.name), word_similarity(:query, found.brand)) AS rank,
+                       count(*) OVER () AS matches
+                FROM (
+                    SELECT *
+                    FROM device
+                    WHERE name ILIKE :pattern OR brand ILIKE :pattern OR name %> :query OR brand %> :query
+                    LIMIT :candidates
+                ) found
+            ) hits
+            """;
+    static final String SEARCH_AFTER_SQL = SEARCH_SQL + """
+            WHERE rank < CAST(:afterRank AS real) OR (rank = CAST(:afterRank AS real) AND id > :afterId)
+            """;
+    static final String SEARCH_ORDER_SQL = """
+            ORDER BY rank DESC, id
+            LIMIT :limit
+            """;
+    /*
+    Whether the matches are found faster through the trigram indexes or by scanning the table until the cap is
+    reached depends on how common the query is. A generic plan for the prepared statement cannot tell, and may scan
+    the whole table for a rare word, so searches are planned for their own values
+    */
+    static final String CUSTOM_PLAN_SQL = "SELECT set_config('plan_cache_mode', 'force_custom_plan', true)";
+
+    private static final Projection<DeviceDTO> DTO_PROJECTION = new Projection<>(DeviceDTO.class,
+            List.of("id", "name", "brand", "state", "creationTime", "version"));
+    private static final Projection<DeviceVersion> VERSION_PROJECTION = new Projection<>(DeviceVersion.class,
+            List.of("id", "version"));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<DeviceDTO> findDtoPage(DeviceFilter filter, Pageable pageable) {
+        return page(DTO_PROJECTION, filter, pageable);
+    }
+
+    @Override
+    public Slice<DeviceDTO> findDtoSlice(DeviceFilter filter, Pageable pageable) {
+        return slice(DTO_PROJECTION, filter, pageable);
+    }
+
+    @Override
+    public Page<DeviceVersion> findVersionPage(DeviceFilter filter, Pageable pageable) {
+        return page(VERSION_PROJECTION, filter, pageable);
+    }
+
+    @Override
+    public Slice<DeviceVersion> findVersionSlice(DeviceFilter filter, Pageable pageable) {
+        return slice(VERSION_PROJECTION, filter, pageable);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DeviceSearchResult search(String query, int candidates, Float afterRank, Long afterId, int limit) {
+        boolean after = afterRank != null && afterId != null;
+        entityManager.createNativeQuery(CUSTOM_PLAN_SQL).getSingleResult();
+        NativeQuery<Object[]> search = entityManager
+                .createNativeQuery((after ? SEARCH_AFTER_SQL : SEARCH_SQL) + SEARCH_ORDER_SQL)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("name", String.class)
+                .addScalar("brand", String.class)
+                .addScalar("state", String.class)
+                .addScalar("creation_time", OffsetDateTime.class)
+                .addScalar("version", Long.class)
+                .addScalar("rank", Float.class)
+                .addScalar("matches", Long.class)
+                .setParameter("query", query)
+                .setParameter("pattern", "%" + DeviceSpecifications.escapeLike(query) + "%")
+                .setParameter("candidates", candidates)
+                .setParameter("limit", limit);
+        if (after) {
+            search.setParameter("afterRank", afterRank).setParameter("afterId", afterId);
+        }
+
+        List<Object[]> rows = search.getResultList();
+        List<DeviceSearchHit> hits = rows.stream()
+                .map(row -> new DeviceSearchHit(new DeviceDTO((Long) row[0], (String) row[1], (String) row[2],
+                        DeviceState.valueOf((String) row[3]), (OffsetDateTime) row[4], (Long) row[5]), (Float) row[6]))
+                .toList();
+        boolean truncated = !rows.isEmpty() && (Long) rows.get(0)[7] >= candidates;
+        return new DeviceSearchResult(hits, truncated);
+    }
+
+    @Override
+    public Optional<DeviceEntity> deleteByIdAndStateNot(Long id, DeviceState state) {
+        List<?> deleted = entityManager.createNativeQuery(DELETE_RETURNING_SQL, DeviceEntity.class)
+                .setParameter("id", id)
+                .setParameter("state", state.name())
+                .getResultList();
+
+        deleted.forEach(entityManager::detach);
+        if (!deleted.isEmpty()) {
+            evictAfterCommit(id);
+        }
+        return deleted.stream().map(DeviceEntity.class::cast).findFirst();
+    }
+
+    /*
+    Hibernate does not recognize a native DELETE run as a query as a write, so it would keep serving the device and
+    the list pages containing it from the second-level cache. They are evicted once the delete is committed, which
+    is when Hibernate itself releases entries of deleted entities
+    */
+    private void evictAfterCommit(Long id) {
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.evictEntityData(DeviceEntity.class, id);
+                cache.evictQueryRegions();
+            }
+        });
+    }
+
+    private <T> Page<T> page(Projection<T> projection, DeviceFilter filter, Pageable pageable) {
+        Specification<DeviceEntity> specification = DeviceSpecifications.matching(filter);
+        List<T> content = select(projection, specification, pageable, pageable.isPaged() ? pageable.getPageSize() : -1);
+
+        // The count query is skipped when the first page is already partial
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    private <T> Slice<T> slice(Projection<T> projection, DeviceFilter filter, Pageable pageable) {
+        Specification<DeviceEntity> specification = DeviceSpecifications.matching(filter);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(select(projection, specification, pageable, -1), pageable, false);
+        }
+
+        List<T> content = select(projection, specification, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private <T> List<T> select(Projection<T> projection, Specification<DeviceEntity> specification,
+                               Pageable pageable, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(projection.type());
+        Root<DeviceEntity> root = query.from(DeviceEntity.class);
+
+        query.select(cb.construct(projection.type(),
+                projection.attributes().stream().map(root::get).toArray(Selection[]::new)));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, "MANUAL")
+                .setHint(HibernateHints.HINT_CACHEABLE, true);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+        }
+        if (maxResults > 0) {
+            typedQuery.setMaxResults(maxResults);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private long count(Specification<DeviceEntity> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<DeviceEntity> root = query.from(DeviceEntity.class);
+
+        query.select(cb.count(root));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, "MANUAL")
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    private record Projection<T>(Class<T> type, List<String> attributes) {
+    }
+}
@@ -1,14 +1,60 @@
 package org.hometask.devicesapi.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hometask.devicesapi.dto.DeviceGroupCount;
 import org.hometask.devicesapi.model.DeviceEntity;
 import org.hometask.devicesapi.model.DeviceState;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+Filtered listing goes through DeviceQueryRepository (DTO projections for page/slice)
+and JpaSpecificationExecutor with DeviceSpecifications (keyset scrolling)
+*/
+
 @Repository
-public interface DeviceRepository extends JpaRepository<DeviceEntity, Long> {
-    Page<DeviceEntity> findByBrand(String brand, Pageable pageable);
-    Page<DeviceEntity> findByState(DeviceState state, Pageable pageable);
+public interface DeviceRepository extends JpaRepository<DeviceEntity, Long>,
+        JpaSpecificationExecutor<DeviceEntity>, DeviceQueryRepository {
+
+    // Forward-only cursor for full exports; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<DeviceEntity> streamAllByOrderByIdAsc();
+
+    // Bulk state transitions lock their rows in id order, so concurrent transitions over overlapping sets cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from DeviceEntity d where d.id in :ids order by d.id")
+    List<DeviceEntity> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Sizes a brand-wide state transition against the batch limit before any device is locked
+    long countByBrand(String brand);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from DeviceEntity d where d.brand = :brand and d.id > :afterId order by d.id")
+    List<DeviceEntity> findByBrandForUpdate(@Param("brand") String brand, @Param("afterId") long afterId, Limit limit);
+
+    // Served from idx_device_brand_state_id; backs the periodic reconciliation of the in-memory device stats
+    @Query("select new org.hometask.devicesapi.dto.DeviceGroupCount(d.brand, d.state, count(d)) "
+            + "from DeviceEntity d group by d.brand, d.state")
+    List<DeviceGroupCount> countByBrandAndState();
+
+    // Set-based state change for rows already locked and validated; bumps the version like a regular update
+    @Modifying(clearAutomatically = true)
+    @Query("update DeviceEntity d set d.state = :state, d.version = d.version + 1 where d.id in :ids")
+    int updateStateByIdIn(@Param("ids") Collection<Long> ids, @Param("state") DeviceState state);
 }
@@ -0,0 +1,58 @@
+package org.hometask.devicesapi.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Translates a DeviceFilter into sargable predicates: equality on brand/state, a left-anchored LIKE on name
+and a half-open creation_time range, so the composite and pattern indexes can serve them
+*/
+
+public final class DeviceSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private DeviceSpecifications() {
+    }
+
+    public static Specification<DeviceEntity> matching(DeviceFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(5);
+
+            if (StringUtils.hasText(filter.getBrand())) {
+                predicates.add(cb.equal(root.get("brand"), filter.getBrand()));
+            }
+            if (filter.getState() != null) {
+                predicates.add(cb.equal(root.get("state"), filter.getState()));
+            }
+            if (StringUtils.hasText(filter.getNamePrefix())) {
+                predicates.add(cb.like(root.get("name"), escapeLike(filter.getNamePrefix()) + "%", LIKE_ESCAPE));
+            }
+            if (filter.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("creationTime"), filter.getCreatedFrom()));
+            }
+            if (filter.getCreatedTo() != null) {
+                predicates.add(cb.lessThan(root.get("creationTime"), filter.getCreatedTo()));
+            }
+
+            return predicates.isEmpty() ? null : cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (char c : value.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
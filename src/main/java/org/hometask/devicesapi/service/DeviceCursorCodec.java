@@ -0,0 +1,86 @@
+package org.hometask.devicesapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hometask.devicesapi.exception.InvalidCursorException;
+import org.hometask.devicesapi.model.DeviceState;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+Encodes keyset scroll positions as opaque, URL-safe cursor tokens.
+A token carries the sort it was issued for, so it cannot be replayed against a different ordering.
+*/
+
+@Component
+public class DeviceCursorCodec {
+
+    private static final Map<String, Function<String, Object>> KEY_PARSERS = Map.of(
+            "id", Long::valueOf,
+            "name", value -> value,
+            "brand", value -> value,
+            "state", DeviceState::valueOf,
+            "creationTime", OffsetDateTime::parse,
+            "rank", Float::valueOf
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public String encode(KeysetScrollPosition position, Sort sort) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        position.getKeys().forEach((key, value) -> keys.put(key, String.valueOf(value)));
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new Cursor(sort.toString(), keys));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode cursor", e);
+        }
+    }
+
+    public KeysetScrollPosition decode(String token, Sort sort) {
+        if (token == null || token.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        Cursor cursor;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token);
+            cursor = objectMapper.readValue(json, Cursor.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidCursorException("Malformed cursor", e);
+        }
+
+        if (cursor.sort() == null || !cursor.sort().equals(sort.toString()) || cursor.keys() == null) {
+            throw new InvalidCursorException("Cursor does not match the requested sort: " + sort);
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        cursor.keys().forEach((key, value) -> keys.put(key, parseKey(key, value)));
+        return ScrollPosition.forward(keys);
+    }
+
+    private Object parseKey(String key, String value) {
+        Function<String, Object> parser = KEY_PARSERS.get(key);
+        if (parser == null || value == null) {
+            throw new InvalidCursorException("Unsupported cursor key: " + key);
+        }
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor value for key: " + key, e);
+        }
+    }
+
+    private record Cursor(String sort, Map<String, String> keys) {
+    }
+}
@@ -1,16 +1,24 @@
 package org.hometask.devicesapi.service;
 
 import org.hometask.devicesapi.dto.*;
-import org.hometask.devicesapi.model.DeviceState;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface DeviceService {
 
     DeviceDTO createDevice(DeviceCreateCommand request);
+    List<DeviceDTO> createDevices(List<DeviceCreateCommand> commands);
     DeviceDTO updateDevice(Long id, DeviceUpdateCommand request);
     DeviceDTO getDeviceById(Long id);
-    Page<DeviceDTO> getDevicesByBrand(String brand, int page, int size, String sortBy);
-    Page<DeviceDTO> getDevicesByState(DeviceState state, int page, int size, String sortBy);
-    Page<DeviceDTO> getAllDevices(int page, int size, String sortBy);
+    Page<DeviceDTO> getDevices(DeviceFilter filter, int page, int size, String sortBy);
+    Slice<DeviceDTO> sliceDevices(DeviceFilter filter, int page, int size, String sortBy);
+    Slice<DeviceVersion> getDeviceVersions(DeviceFilter filter, int page, int size, String sortBy, boolean withTotal);
+    CursorPage<DeviceDTO> scrollDevices(DeviceFilter filter, String after, int size, String sortBy);
+    CursorPage<DeviceDTO> searchDevices(String query, String after, int size);
     void deleteDevice(Long id);
+    DeviceStateTransitionResponse transitionStates(DeviceStateTransitionCommand command);
+    void exportDevices(Consumer<DeviceDTO> sink);
 }
@@ -1,61 +1,157 @@
 package org.hometask.devicesapi.service;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hometask.devicesapi.config.CacheConfig;
+import org.hometask.devicesapi.config.DeviceBatchProperties;
+import org.hometask.devicesapi.config.DeviceScrollProperties;
+import org.hometask.devicesapi.config.DeviceSearchProperties;
 import org.hometask.devicesapi.dto.*;
+import org.hometask.devicesapi.exception.BatchLimitExceededException;
+import org.hometask.devicesapi.exception.DeviceInUseException;
 import org.hometask.devicesapi.exception.DeviceNotFoundException;
+import org.hometask.devicesapi.exception.DeviceVersionMismatchException;
+import org.hometask.devicesapi.exception.InvalidCursorException;
+import org.hometask.devicesapi.exception.InvalidPageSizeException;
+import org.hometask.devicesapi.exception.InvalidSearchQueryException;
 import org.hometask.devicesapi.mapper.DeviceMapper;
 import org.hometask.devicesapi.model.DeviceEntity;
 import org.hometask.devicesapi.model.DeviceState;
 import org.hometask.devicesapi.repository.DeviceRepository;
+import org.hometask.devicesapi.repository.DeviceSpecifications;
 import org.hometask.devicesapi.validation.DeviceValidator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DeviceServiceImpl implements DeviceService {
 
+    private static final Sort SEARCH_SORT = Sort.by(Sort.Order.desc("rank"), Sort.Order.asc("id"));
+
     private final DeviceRepository deviceRepository;
     private final DeviceMapper deviceMapper;
     private final DeviceValidator deviceValidator;
+    private final DeviceCursorCodec deviceCursorCodec;
+    private final DeviceBatchProperties batchProperties;
+    private final DeviceSearchProperties searchProperties;
+    private final DeviceScrollProperties scrollProperties;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Override
     @Transactional
     public DeviceDTO createDevice(DeviceCreateCommand command) {
 
         var device = deviceMapper.toEntity(command);
-        var savedDevice = deviceRepository.save(device);
-        log.info("Device created with id: {}", savedDevice.getId());
+        // Flushed so the creation timestamp is set before the device is returned and recorded in the outbox
+        var savedDevice = deviceRepository.saveAndFlush(device);
+        log.debug("Device created with id: {}", savedDevice.getId());
 
-        return deviceMapper.toDTO(savedDevice);
+        var created = deviceMapper.toDTO(savedDevice);
+        publishChange(DeviceChangeEvent.Type.CREATED, savedDevice.getId(), created, null);
+        return created;
     }
 
     @Override
     @Transactional
-    public DeviceDTO updateDevice(Long id, DeviceUpdateCommand command) {
-        log.info("Update for device id: {}", id);
+    public List<DeviceDTO> createDevices(List<DeviceCreateCommand> commands) {
+        log.info("Creating {} devices in chunks of {}", commands.size(), batchProperties.chunkSize());
+        List<DeviceDTO> created = new ArrayList<>(commands.size());
+
+        for (int from = 0; from < commands.size(); from += batchProperties.chunkSize()) {
+            int to = Math.min(from + batchProperties.chunkSize(), commands.size());
+            List<DeviceEntity> chunk = commands.subList(from, to).stream()
+                    .map(deviceMapper::toEntity)
+                    .toList();
+
+            deviceRepository.saveAll(chunk);
+            entityManager.flush();
+            for (DeviceEntity device : chunk) {
+                var dto = deviceMapper.toDTO(device);
+                created.add(dto);
+                publishChange(DeviceChangeEvent.Type.CREATED, device.getId(), dto, null);
+            }
+            // Detach the flushed chunk so the persistence context stays bounded for large batches
+            entityManager.clear();
+        }
+
+        return created;
+    }
 
+    @Override
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.DEVICES_CACHE, key = "#id")
+    @Retryable(retryFor = ObjectOptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${devices.update.retry.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${devices.update.retry.delay-ms:20}",
+                    multiplierExpression = "${devices.update.retry.multiplier:2}",
+                    maxDelayExpression = "${devices.update.retry.max-delay-ms:200}",
+                    random = true))
+    public DeviceDTO updateDevice(Long id, DeviceUpdateCommand command) {
         var device = deviceRepository.findById(id)
                 .orElseThrow(() -> new DeviceNotFoundException(id));
 
+        if (command.getExpectedVersion() != null && !command.getExpectedVersion().equals(device.getVersion())) {
+            throw new DeviceVersionMismatchException(id, command.getExpectedVersion(), device.getVersion());
+        }
+
         deviceValidator.validateUpdate(device, command);
+        var previous = deviceMapper.toDTO(device);
         applyUpdates(device, command);
 
-        var updatedDevice = deviceRepository.save(device);
-        log.info("Device partially updated: {}", updatedDevice.getId());
+        // Flush inside the attempt so a concurrent write surfaces here (and is retried) and the DTO carries the new version
+        var updatedDevice = deviceRepository.saveAndFlush(device);
+        log.debug("Device partially updated: {}", updatedDevice.getId());
 
-        return deviceMapper.toDTO(updatedDevice);
+        var updated = deviceMapper.toDTO(updatedDevice);
+        if (!updated.equals(previous)) {
+            publishChange(DeviceChangeEvent.Type.UPDATED, id, updated, previous);
+        }
+        return updated;
     }
 
+    /*
+    Runs in a read-write transaction so that a cache miss reads from the primary: the result is cached for the TTL,
+    and a copy read from a lagging replica would keep serving what a recent write replaced. The miss is loaded
+    under the cache entry's lock, so an update committed meanwhile caches its result after the load, not before
+    */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DEVICES_CACHE, key = "#id", sync = true)
+    @Transactional
     public DeviceDTO getDeviceById(Long id) {
-        log.info("Fetching device with id: {}", id);
+        log.debug("Fetching device with id: {}", id);
 
         DeviceEntity device = deviceRepository.findById(id)
                 .orElseThrow(() -> new DeviceNotFoundException(id));
@@ -63,64 +159,284 @@ public class DeviceServiceImpl implements DeviceService {
     }
 
     @Override
-    public Page<DeviceDTO> getDevicesByBrand(String brand, int page, int size, String sortBy) {
-        log.info("Fetching devices by brand: {} - page: {}, size: {}", brand, page, size);
+    @Transactional(readOnly = true)
+    public Page<DeviceDTO> getDevices(DeviceFilter filter, int page, int size, String sortBy) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching devices - filter: {}, page: {}, size: {}, sort: {}", filter, page, size, sortBy);
+        }
         Pageable pageable = createPageable(page, size, sortBy);
-        Page<DeviceEntity> devicePage = deviceRepository.findByBrand(brand, pageable);
 
-        return devicePage.map(deviceMapper::toDTO);
+        return deviceRepository.findDtoPage(filter, pageable);
     }
 
     @Override
-    public Page<DeviceDTO> getDevicesByState(DeviceState state, int page, int size, String sortBy) {
-        log.info("Fetching devices by state: {} - page: {}, size: {}", state, page, size);
+    @Transactional(readOnly = true)
+    public Slice<DeviceDTO> sliceDevices(DeviceFilter filter, int page, int size, String sortBy) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching device slice - filter: {}, page: {}, size: {}, sort: {}", filter, page, size, sortBy);
+        }
+        Pageable pageable = createPageable(page, size, sortBy);
+
+        return deviceRepository.findDtoSlice(filter, pageable);
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<DeviceVersion> getDeviceVersions(DeviceFilter filter, int page, int size, String sortBy, boolean withTotal) {
         Pageable pageable = createPageable(page, size, sortBy);
-        Page<DeviceEntity> devicePage = deviceRepository.findByState(state, pageable);
 
-        return devicePage.map(deviceMapper::toDTO);
+        return withTotal
+                ? deviceRepository.findVersionPage(filter, pageable)
+                : deviceRepository.findVersionSlice(filter, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<DeviceDTO> scrollDevices(DeviceFilter filter, String after, int size, String sortBy) {
+        if (log.isDebugEnabled()) {
+            log.debug("Scrolling devices - filter: {}, size: {}, sort: {}", filter, size, sortBy);
+        }
+        if (size < 1 || size > scrollProperties.maxSize()) {
+            throw new InvalidPageSizeException(scrollProperties.maxSize());
+        }
+        Sort sort = DeviceSortResolver.resolve(sortBy);
+        KeysetScrollPosition position = deviceCursorCodec.decode(after, sort);
 
-    @Transactional
+        Window<DeviceEntity> window = deviceRepository.findBy(DeviceSpecifications.matching(filter),
+                query -> query.sortBy(sort).limit(size).scroll(position));
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            var last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = deviceCursorCodec.encode(last, sort);
+        }
+
+        return CursorPage.<DeviceDTO>builder()
+                .content(window.map(deviceMapper::toDTO).getContent())
+                .nextCursor(nextCursor)
+                .size(window.size())
+                .build();
+    }
+
+    /*
+    Hits are ordered by rank, then id, and the cursor carries both of the last hit. Many hits share a rank, and the id
+    breaks those ties, so no hit is skipped or repeated between pages
+    */
     @Override
-    public Page<DeviceDTO> getAllDevices(int page, int size, String sortBy) {
-        log.info("Fetching all devices - page: {}, size: {}, sort: {}", page, size, sortBy);
-        Pageable pageable = createPageable(page, size, sortBy);
-        Page<DeviceEntity> devicePage = deviceRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public CursorPage<DeviceDTO> searchDevices(String query, String after, int size) {
+        String trimmed = query == null ? "" : query.strip();
+        if (trimmed.length() < searchProperties.minQueryLength()) {
+            throw new InvalidSearchQueryException(
+                    "Search query must have at least " + searchProperties.minQueryLength() + " characters");
+        }
+        int limit = Math.clamp(size, 1, searchProperties.maxSize());
+        log.debug("Searching devices - query: {}, size: {}", trimmed, limit);
+
+        KeysetScrollPosition position = deviceCursorCodec.decode(after, SEARCH_SORT);
+        Float afterRank = position.isInitial() ? null : (Float) position.getKeys().get("rank");
+        Long afterId = position.isInitial() ? null : (Long) position.getKeys().get("id");
+        if (!position.isInitial() && (afterRank == null || afterId == null)) {
+            throw new InvalidCursorException("Cursor does not match the requested sort: " + SEARCH_SORT);
+        }
+
+        // One extra hit tells whether another page follows
+        DeviceSearchResult result = deviceRepository.search(
+                trimmed, searchProperties.candidateLimit(), afterRank, afterId, limit + 1);
+        List<DeviceSearchHit> hits = result.getHits();
+        boolean hasNext = hits.size() > limit;
+        List<DeviceSearchHit> page = hasNext ? hits.subList(0, limit) : hits;
 
-        return devicePage.map(deviceMapper::toDTO);
+        String nextCursor = null;
+        if (hasNext) {
+            DeviceSearchHit last = page.get(page.size() - 1);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("rank", last.getRank());
+            keys.put("id", last.getDevice().getId());
+            nextCursor = deviceCursorCodec.encode(ScrollPosition.forward(keys), SEARCH_SORT);
+        }
+
+        return CursorPage.<DeviceDTO>builder()
+                .content(page.stream().map(DeviceSearchHit::getDevice).toList())
+                .nextCursor(nextCursor)
+                .size(page.size())
+                .truncated(result.isTruncated())
+                .build();
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.DEVICES_CACHE, key = "#id")
     public void deleteDevice(Long id) {
-        log.info("Deleting device with id: {}", id);
-        DeviceEntity device = deviceRepository.findById(id)
-                .orElseThrow(() -> new DeviceNotFoundException(id));
+        log.debug("Deleting device with id: {}", id);
+        var deleted = deviceRepository.deleteByIdAndStateNot(id, DeviceState.IN_USE);
+
+        if (deleted.isEmpty()) {
+            // Only the failure path pays for a second lookup, to tell a missing device from one in use
+            if (deviceRepository.existsById(id)) {
+                throw new DeviceInUseException(id);
+            }
+            throw new DeviceNotFoundException(id);
+        }
+        publishChange(DeviceChangeEvent.Type.DELETED, id, null, deviceMapper.toDTO(deleted.get()));
+    }
+
+    /*
+    Every chunk of devices is locked, checked against DeviceValidator and then changed with a single UPDATE,
+    instead of a read, validate and save round trip per device. The whole request commits or rolls back together,
+    so a brand is held to the same item limit as explicit ids before any of its devices is locked
+    */
+    @Override
+    @Transactional
+    public DeviceStateTransitionResponse transitionStates(DeviceStateTransitionCommand command) {
+        DeviceState targetState = command.getState();
+        int chunkSize = batchProperties.transitionChunkSize();
+        List<DeviceStateTransitionResult> results = new ArrayList<>();
+
+        if (command.getIds() == null || command.getIds().isEmpty()) {
+            long matching = deviceRepository.countByBrand(command.getBrand());
+            if (matching > batchProperties.maxItems()) {
+                throw new BatchLimitExceededException(matching, batchProperties.maxItems());
+            }
+            log.info("Moving devices of brand {} to {} in chunks of {}", command.getBrand(), targetState, chunkSize);
+            long afterId = 0;
+            List<DeviceEntity> chunk;
+            do {
+                chunk = deviceRepository.findByBrandForUpdate(command.getBrand(), afterId, Limit.of(chunkSize));
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                    results.addAll(transitionChunk(chunk, targetState).values());
+                }
+            } while (chunk.size() == chunkSize);
+        } else {
+            List<Long> ids = List.copyOf(new LinkedHashSet<>(command.getIds()));
+            log.info("Moving {} devices to {} in chunks of {}", ids.size(), targetState, chunkSize);
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunkIds = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                var outcomes = transitionChunk(deviceRepository.findAllByIdForUpdate(chunkIds), targetState);
+                for (Long id : chunkIds) {
+                    results.add(outcomes.getOrDefault(id, transitionResult(id, DeviceStateTransitionResult.Status.NOT_FOUND,
+                            null, "Device not found with id: " + id)));
+                }
+            }
+        }
+
+        int updated = countResults(results, DeviceStateTransitionResult.Status.UPDATED);
+        int unchanged = countResults(results, DeviceStateTransitionResult.Status.UNCHANGED);
+        int failed = results.size() - updated - unchanged;
+        log.info("State transition to {}: {} updated, {} unchanged, {} failed", targetState, updated, unchanged, failed);
 
-        deviceValidator.validateDelete(device);
-        deviceRepository.delete(device);
+        return DeviceStateTransitionResponse.builder()
+                .updated(updated)
+                .unchanged(unchanged)
+                .failed(failed)
+                .results(results)
+                .build();
     }
 
-    private Pageable createPageable(int page, int size, String sortBy) {
+    /*
+    Exported rows bypass the second-level cache, where they would push the frequently read devices out of the entity
+    region. The cache mode is set on the session rather than as a query hint: Hibernate applies a hint only while the
+    query is being set up, and stream rows are loaded later, as the export consumes them
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportDevices(Consumer<DeviceDTO> sink) {
+        log.info("Exporting all devices");
+        long exported = 0;
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+
+        try (Stream<DeviceEntity> devices = deviceRepository.streamAllByOrderByIdAsc()) {
+            var iterator = devices.iterator();
+            while (iterator.hasNext()) {
+                DeviceEntity device = iterator.next();
+                sink.accept(deviceMapper.toDTO(device));
+                entityManager.detach(device);
+                exported++;
+            }
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+
+        log.info("Exported {} devices", exported);
+    }
 
-        String defaultField = "id";
+    static Pageable createPageable(int page, int size, String sortBy) {
+        return PageRequest.of(page, size, DeviceSortResolver.resolve(sortBy));
+    }
 
-        if (sortBy == null || sortBy.isBlank()) {
-            return PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, defaultField));
+    private Map<Long, DeviceStateTransitionResult> transitionChunk(List<DeviceEntity> devices, DeviceState targetState) {
+        Map<Long, DeviceStateTransitionResult> outcomes = new LinkedHashMap<>();
+        List<DeviceEntity> changing = new ArrayList<>();
+
+        for (DeviceEntity device : devices) {
+            if (device.getState() == targetState) {
+                outcomes.put(device.getId(), transitionResult(device.getId(), DeviceStateTransitionResult.Status.UNCHANGED,
+                        device.getVersion(), null));
+                continue;
+            }
+            try {
+                deviceValidator.validateBulkStateTransition(device, targetState);
+                changing.add(device);
+                outcomes.put(device.getId(), transitionResult(device.getId(), DeviceStateTransitionResult.Status.UPDATED,
+                        device.getVersion() + 1, null));
+            } catch (DeviceInUseException e) {
+                outcomes.put(device.getId(), transitionResult(device.getId(), DeviceStateTransitionResult.Status.IN_USE,
+                        device.getVersion(), e.getMessage()));
+            }
+        }
+        if (changing.isEmpty()) {
+            return outcomes;
         }
 
-        String[] params = sortBy.split(",");
+        List<DeviceDTO> previous = changing.stream().map(deviceMapper::toDTO).toList();
+        deviceRepository.updateStateByIdIn(changing.stream().map(DeviceEntity::getId).toList(), targetState);
 
-        String field = params.length > 0 ? params[0].trim() : defaultField;
+        Cache devicesCache = cacheManager.getCache(CacheConfig.DEVICES_CACHE);
+        for (DeviceDTO before : previous) {
+            var updated = DeviceDTO.builder()
+                    .id(before.getId())
+                    .name(before.getName())
+                    .brand(before.getBrand())
+                    .state(targetState)
+                    .creationTime(before.getCreationTime())
+                    .version(before.getVersion() + 1)
+                    .build();
+            // Like a PATCH, the cached copy is replaced once the transaction commits
+            if (devicesCache != null) {
+                devicesCache.put(updated.getId(), updated);
+            }
+            publishChange(DeviceChangeEvent.Type.UPDATED, updated.getId(), updated, before);
+        }
+        return outcomes;
+    }
 
-        Sort.Direction direction =
-                params.length > 1 && params[1].equalsIgnoreCase("desc")
-                        ? Sort.Direction.DESC
-                        : Sort.Direction.ASC;
+    private static int countResults(List<DeviceStateTransitionResult> results, DeviceStateTransitionResult.Status status) {
+        return (int) results.stream().filter(result -> result.getStatus() == status).count();
+    }
+
+    private static DeviceStateTransitionResult transitionResult(Long id, DeviceStateTransitionResult.Status status,
+                                                                Long version, String message) {
+        return DeviceStateTransitionResult.builder()
+                .id(id)
+                .status(status)
+                .version(version)
+                .message(message)
+                .build();
+    }
 
-        return PageRequest.of(page, size, Sort.by(direction, field));
+    /*
+    Delivered to listeners such as the device stream only once the transaction commits
+    */
+    private void publishChange(DeviceChangeEvent.Type type, Long id, DeviceDTO device, DeviceDTO previous) {
+        eventPublisher.publishEvent(DeviceChangeEvent.builder()
+                .type(type)
+                .deviceId(id)
+                .device(device)
+                .previous(previous)
+                .build());
     }
 
     private void applyUpdates(DeviceEntity device, DeviceUpdateCommand command) {
@@ -0,0 +1,80 @@
+package org.hometask.devicesapi.service;
+
+import org.hometask.devicesapi.exception.InvalidSortException;
+import org.springframework.data.domain.Sort;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+Resolves the public "field[,asc|desc]" sort parameter to a Sort that one of the device indexes can serve.
+Every accepted combination is built once, so a request only looks up a shared, immutable Sort
+*/
+
+final class DeviceSortResolver {
+
+    static final String DEFAULT_FIELD = "id";
+
+    /*
+    Each field leads an index (primary key, idx_device_name_id, idx_device_brand_id, idx_device_state_id,
+    idx_device_creation_time); sorting by anything else would sort the whole table
+    */
+    static final List<String> SORTABLE_FIELDS = List.of("id", "name", "brand", "state", "creationTime");
+
+    private static final Map<String, Sort> SORTS = precompile();
+
+    private DeviceSortResolver() {
+    }
+
+    static Sort resolve(String sortBy) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return SORTS.get(DEFAULT_FIELD);
+        }
+
+        Sort sort = SORTS.get(sortBy);
+        return sort != null ? sort : parse(sortBy);
+    }
+
+    /*
+    Slow path for spellings that are not canonical ("name, DESC"); still ends in a precompiled Sort
+    */
+    private static Sort parse(String sortBy) {
+        String[] params = sortBy.split(",");
+        if (params.length == 0 || params.length > 2) {
+            throw new InvalidSortException("Sort must be 'field' or 'field,asc|desc', but was '%s'".formatted(sortBy));
+        }
+
+        String field = params[0].trim();
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new InvalidSortException("Sorting by '%s' is not supported, use one of %s".formatted(field, SORTABLE_FIELDS));
+        }
+
+        String direction = params.length > 1 ? params[1].trim().toLowerCase(Locale.ROOT) : "asc";
+        Sort sort = SORTS.get(field + "," + direction);
+        if (sort == null) {
+            throw new InvalidSortException("Sort direction must be 'asc' or 'desc', but was '%s'".formatted(params[1].trim()));
+        }
+        return sort;
+    }
+
+    /*
+    Non-unique fields get id as a tie-breaker in the same direction, which keeps offset pages stable
+    and matches the (field, id) indexes so PostgreSQL can read them in order
+    */
+    private static Map<String, Sort> precompile() {
+        Map<String, Sort> sorts = new HashMap<>();
+        for (String field : SORTABLE_FIELDS) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort sort = Sort.by(direction, field);
+                if (!DEFAULT_FIELD.equals(field)) {
+                    sort = sort.and(Sort.by(direction, DEFAULT_FIELD));
+                }
+                sorts.put(field + "," + direction.name().toLowerCase(Locale.ROOT), sort);
+            }
+            sorts.put(field, sorts.get(field + ",asc"));
+        }
+        return Map.copyOf(sorts);
+    }
+}
@@ -0,0 +1,192 @@
+package org.hometask.devicesapi.stats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hometask.devicesapi.dto.DeviceChangeEvent;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceGroupCount;
+import org.hometask.devicesapi.dto.DeviceStats;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.repository.DeviceRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+In-memory device counts per brand and state behind GET /devices/stats. Every committed change adjusts them, and a
+periodic GROUP BY replaces them, which also corrects drift from races with that query and picks up changes made
+by other instances. Reads never touch the database and reuse the last snapshot until the counts change
+*/
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceStatsTracker {
+
+    static final int MAX_RECONCILE_ATTEMPTS = 3;
+
+    private static final DeviceState[] STATES = DeviceState.values();
+
+    private final DeviceRepository deviceRepository;
+
+    private final Map<String, AtomicLongArray> counts = new ConcurrentHashMap<>();
+    // Adjustments hold the read lock and run side by side; reconciliation takes the write lock to swap the counts
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong version = new AtomicLong();
+    private volatile OffsetDateTime reconciledAt;
+    private volatile Snapshot snapshot = new Snapshot(-1, null);
+
+    @TransactionalEventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        lock.readLock().lock();
+        try {
+            switch (event.getType()) {
+                case CREATED -> adjust(event.getDevice(), 1);
+                case UPDATED -> {
+                    adjust(event.getPrevious(), -1);
+                    adjust(event.getDevice(), 1);
+                }
+                case DELETED -> adjust(event.getPrevious(), -1);
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public DeviceStats getStats() {
+        Snapshot current = snapshot;
+        long currentVersion = version.get();
+        if (current.version() == currentVersion) {
+            return current.stats();
+        }
+
+        DeviceStats stats = buildStats();
+        snapshot = new Snapshot(currentVersion, stats);
+        return stats;
+    }
+
+    /*
+    Counts committed while the GROUP BY runs would be lost or counted twice by the swap, so it is retried
+    when devices changed in the meantime and otherwise left for the next run. It runs in a read-write transaction
+    to count on the primary: a lagging replica would overwrite the counts with ones that miss recent changes
+    */
+    @Scheduled(fixedDelayString = "${devices.stats.reconcile-interval:PT5M}")
+    @Transactional
+    public void reconcile() {
+        for (int attempt = 1; attempt <= MAX_RECONCILE_ATTEMPTS; attempt++) {
+            long before = version.get();
+            List<DeviceGroupCount> groups = deviceRepository.countByBrandAndState();
+
+            lock.writeLock().lock();
+            try {
+                if (version.get() == before) {
+                    replaceCounts(groups);
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.debug("Device stats reconciliation skipped, devices kept changing while they were counted");
+    }
+
+    private void adjust(DeviceDTO device, int delta) {
+        if (device == null) {
+            return;
+        }
+        counts.computeIfAbsent(device.getBrand(), brand -> new AtomicLongArray(STATES.length))
+                .addAndGet(device.getState().ordinal(), delta);
+    }
+
+    private void replaceCounts(List<DeviceGroupCount> groups) {
+        Map<String, AtomicLongArray> fresh = new HashMap<>();
+        for (DeviceGroupCount group : groups) {
+            fresh.computeIfAbsent(group.getBrand(), brand -> new AtomicLongArray(STATES.length))
+                    .set(group.getState().ordinal(), group.getCount());
+        }
+
+        long corrected = 0;
+        for (String brand : union(counts.keySet(), fresh.keySet())) {
+            for (DeviceState state : STATES) {
+                if (count(counts, brand, state) != count(fresh, brand, state)) {
+                    corrected++;
+                }
+            }
+        }
+        if (corrected > 0) {
+            log.info("Device stats reconciled, corrected {} brand and state counts", corrected);
+        }
+
+        counts.clear();
+        counts.putAll(fresh);
+        reconciledAt = OffsetDateTime.now();
+        version.incrementAndGet();
+    }
+
+    private DeviceStats buildStats() {
+        Map<DeviceState, Long> byState = new EnumMap<>(DeviceState.class);
+        for (DeviceState state : STATES) {
+            byState.put(state, 0L);
+        }
+        Map<String, Long> byBrand = new TreeMap<>();
+        Map<String, Map<DeviceState, Long>> byBrandAndState = new TreeMap<>();
+        long total = 0;
+
+        for (Map.Entry<String, AtomicLongArray> entry : counts.entrySet()) {
+            Map<DeviceState, Long> brandStates = new EnumMap<>(DeviceState.class);
+            long brandTotal = 0;
+            for (DeviceState state : STATES) {
+                long count = entry.getValue().get(state.ordinal());
+                if (count != 0) {
+                    brandStates.put(state, count);
+                    byState.merge(state, count, Long::sum);
+                    brandTotal += count;
+                }
+            }
+            if (!brandStates.isEmpty()) {
+                byBrand.put(entry.getKey(), brandTotal);
+                byBrandAndState.put(entry.getKey(), Collections.unmodifiableMap(brandStates));
+                total += brandTotal;
+            }
+        }
+
+        return DeviceStats.builder()
+                .total(total)
+                .byState(Collections.unmodifiableMap(byState))
+                .byBrand(Collections.unmodifiableMap(byBrand))
+                .byBrandAndState(Collections.unmodifiableMap(byBrandAndState))
+                .reconciledAt(reconciledAt)
+                .build();
+    }
+
+    private static long count(Map<String, AtomicLongArray> counts, String brand, DeviceState state) {
+        AtomicLongArray brandCounts = counts.get(brand);
+        return brandCounts == null ? 0 : brandCounts.get(state.ordinal());
+    }
+
+    private static <T> Set<T> union(Set<T> first, Set<T> second) {
+        Set<T> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    private record Snapshot(long version, DeviceStats stats) {
+    }
+}
@@ -29,12 +29,19 @@ public class DeviceValidator {
         }
     }
 
-    public void validateDelete(DeviceEntity device) {
-        log.debug("Validating delete for device {} with state {}",
-                device.getId(), device.getState());
+    /*
+    Bulk transitions are for moving idle devices around; a device IN_USE is only released through its own update
+    */
+    public void validateBulkStateTransition(DeviceEntity device, DeviceState targetState) {
+        if (log.isDebugEnabled()) {
+            log.debug("Validating bulk transition of device {} from {} to {}",
+                    device.getId(), device.getState(), targetState);
+        }
 
-        if (device.getState() == DeviceState.IN_USE) {
-            throw new DeviceInUseException(device.getId());
+        if (device.getState() == DeviceState.IN_USE && targetState != DeviceState.IN_USE) {
+            throw new DeviceInUseException(
+                    "Cannot change the state of a device that is IN_USE in bulk, update it individually"
+            );
         }
     }
 }
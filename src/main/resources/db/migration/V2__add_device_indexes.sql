@@ -0,0 +1,5 @@
+-- Serve the brand/state list queries and their keyset (sort field, id) seeks.
+-- The composite indexes also cover plain brand or state lookups through their leading column.
+CREATE INDEX idx_device_brand_id ON device (brand, id);
+CREATE INDEX idx_device_state_id ON device (state, id);
+CREATE INDEX idx_device_creation_time ON device (creation_time);
@@ -0,0 +1,3 @@
+-- DeviceEntity allocates ids from this sequence in blocks of 50 (pooled optimizer),
+-- so the sequence increment has to match the allocationSize.
+ALTER SEQUENCE device_id_seq INCREMENT BY 50;
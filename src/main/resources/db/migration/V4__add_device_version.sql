@@ -0,0 +1,2 @@
+-- Optimistic locking column for DeviceEntity (@Version). Existing rows start at version 0.
+ALTER TABLE device ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- Combined brand + state filters, seekable by id for page, slice and keyset queries.
+CREATE INDEX idx_device_brand_state_id ON device (brand, state, id);
+-- Left-anchored name LIKE 'prefix%' lookups; pattern ops make the index usable regardless of the database collation.
+CREATE INDEX idx_device_name_pattern ON device (name varchar_pattern_ops);
@@ -0,0 +1,3 @@
+-- Serves ORDER BY name, id for page, slice and keyset listings.
+-- The pattern-ops index from V5 only answers LIKE prefixes; it cannot return rows in collation order.
+CREATE INDEX idx_device_name_id ON device (name, id);
@@ -0,0 +1,9 @@
+-- Device change events written in the same transaction as the change and relayed to downstream consumers.
+-- Rows are deleted once the relay has handed them to the sink, so the table only holds the backlog.
+CREATE TABLE device_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    device_id BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,9 @@
+-- Trigram indexes behind GET /devices/search: substring (ILIKE '%q%') and fuzzy word matches (%>) on name and brand.
+-- pg_trgm is a trusted extension, so the database owner can create it without superuser rights.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- New rows wait in a pending list that every search scans until it is merged into the index. A large list slows
+-- searches and makes the planner prefer a sequential scan, so it is kept well below the 4MB default; batch inserts
+-- still merge their entries in bulk.
+CREATE INDEX idx_device_name_trgm ON device USING gin (name gin_trgm_ops) WITH (gin_pending_list_limit = 256);
+CREATE INDEX idx_device_brand_trgm ON device USING gin (brand gin_trgm_ops) WITH (gin_pending_list_limit = 256);
@@ -1,38 +1,66 @@
 package org.hometask.devicesapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hometask.devicesapi.config.DeviceBatchProperties;
 import org.hometask.devicesapi.dto.*;
+import org.hometask.devicesapi.event.DeviceEventBroadcaster;
 import org.hometask.devicesapi.exception.DeviceInUseException;
 import org.hometask.devicesapi.exception.DeviceNotFoundException;
+import org.hometask.devicesapi.exception.DeviceVersionMismatchException;
+import org.hometask.devicesapi.exception.InvalidCursorException;
+import org.hometask.devicesapi.exception.InvalidPageSizeException;
+import org.hometask.devicesapi.exception.InvalidSearchQueryException;
+import org.hometask.devicesapi.exception.InvalidSortException;
 import org.hometask.devicesapi.mapper.DeviceMapper;
 import org.hometask.devicesapi.model.DeviceState;
 import org.hometask.devicesapi.service.DeviceService;
+import org.hometask.devicesapi.stats.DeviceStatsTracker;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
-@WebMvcTest(DeviceController.class)
+@WebMvcTest(value = DeviceController.class, properties = "devices.batch.max-items=3")
 class DeviceControllerTest {
 
+    @TestConfiguration
+    @EnableConfigurationProperties(DeviceBatchProperties.class)
+    static class BatchPropertiesConfig {
+    }
+
     @Autowired
     private MockMvc mockMvc;
     @Autowired
@@ -41,6 +69,10 @@ class DeviceControllerTest {
     private DeviceService deviceService;
     @MockBean
     private DeviceMapper deviceMapper;
+    @MockBean
+    private DeviceEventBroadcaster eventBroadcaster;
+    @MockBean
+    private DeviceStatsTracker statsTracker;
 
     @Test
     void createDevice_WithValidData_ShouldReturnCreated() throws Exception {
@@ -62,7 +94,8 @@ class DeviceControllerTest {
                 "iPhone 15 Pro",
                 "Apple",
                 DeviceState.AVAILABLE,
-                OffsetDateTime.now()
+                OffsetDateTime.now(),
+                0L
         );
 
         when(deviceService.createDevice(any(DeviceCreateCommand.class)))
@@ -111,6 +144,169 @@ class DeviceControllerTest {
         verify(deviceService, never()).createDevice(any());
     }
 
+    @Test
+    void createDevices_WithMixedItems_ShouldReportPerItemResults() throws Exception {
+        // Given
+        String requestBody = "[{\"name\": \"iPhone 15\", \"brand\": \"Apple\"}, {\"brand\": \"Samsung\"}, null]";
+        DeviceCreateCommand command = new DeviceCreateCommand("iPhone 15", "Apple", DeviceState.AVAILABLE, OffsetDateTime.now());
+
+        when(deviceMapper.toCreateCommand(any(DeviceCreateRequest.class))).thenReturn(command);
+        when(deviceService.createDevices(List.of(command)))
+                .thenReturn(List.of(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE)));
+
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.failed", is(2)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[0].device.id", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("INVALID")))
+                .andExpect(jsonPath("$.results[1].errors.name", is("Name is required")))
+                .andExpect(jsonPath("$.results[2].status", is("INVALID")));
+
+        verify(deviceService, times(1)).createDevices(List.of(command));
+    }
+
+    @Test
+    void createDevices_FromNdjson_ShouldParseEveryLine() throws Exception {
+        // Given
+        String requestBody = """
+                {"name": "iPhone 15", "brand": "Apple"}
+
+                not json
+                {"name": "Pixel 8", "brand": "Google"}
+                """;
+        DeviceCreateCommand command = new DeviceCreateCommand("iPhone 15", "Apple", DeviceState.AVAILABLE, OffsetDateTime.now());
+
+        when(deviceMapper.toCreateCommand(any(DeviceCreateRequest.class))).thenReturn(command);
+        when(deviceService.createDevices(anyList())).thenReturn(List.of(
+                createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE),
+                createDeviceDTO(2L, "Pixel 8", "Google", DeviceState.AVAILABLE)));
+
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(requestBody))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("INVALID")))
+                .andExpect(jsonPath("$.results[2].device.id", is(2)));
+    }
+
+    @Test
+    void createDevices_OverLimit_ShouldReturnPayloadTooLarge() throws Exception {
+        // Given
+        List<DeviceCreateRequest> requests = List.of(
+                createDeviceRequest("a"), createDeviceRequest("b"), createDeviceRequest("c"), createDeviceRequest("d"));
+
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andDo(print())
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(deviceService, never()).createDevices(any());
+    }
+
+    @Test
+    void transitionStates_ByIds_ShouldReturnPerDeviceOutcomes() throws Exception {
+        // Given
+        String requestBody = "{\"ids\": [1, 2], \"state\": \"INACTIVE\"}";
+        DeviceStateTransitionCommand command = new DeviceStateTransitionCommand(List.of(1L, 2L), null, DeviceState.INACTIVE);
+        when(deviceMapper.toStateTransitionCommand(any(DeviceStateTransitionRequest.class))).thenReturn(command);
+        when(deviceService.transitionStates(command)).thenReturn(DeviceStateTransitionResponse.builder()
+                .updated(1)
+                .failed(1)
+                .results(List.of(
+                        DeviceStateTransitionResult.builder()
+                                .id(1L).status(DeviceStateTransitionResult.Status.UPDATED).version(3L).build(),
+                        DeviceStateTransitionResult.builder()
+                                .id(2L).status(DeviceStateTransitionResult.Status.IN_USE).version(1L)
+                                .message("Cannot change the state of a device that is IN_USE in bulk").build()))
+                .build());
+
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/state-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[0].version", is(3)))
+                .andExpect(jsonPath("$.results[0].message").doesNotExist())
+                .andExpect(jsonPath("$.results[1].status", is("IN_USE")));
+    }
+
+    @Test
+    void transitionStates_WithIdsAndBrand_ShouldReturnBadRequest() throws Exception {
+        // Given
+        String requestBody = "{\"ids\": [1], \"brand\": \"Apple\", \"state\": \"INACTIVE\"}";
+
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/state-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.selectionValid", is("Exactly one of ids or brand is required")));
+
+        verify(deviceService, never()).transitionStates(any());
+    }
+
+    @Test
+    void transitionStates_WithoutTargetState_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/state-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"brand\": \"Apple\"}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.state", is("Target state is required")));
+
+        verify(deviceService, never()).transitionStates(any());
+    }
+
+    @Test
+    void transitionStates_OverLimit_ShouldReturnPayloadTooLarge() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/state-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1, 2, 3, 4], \"state\": \"INACTIVE\"}"))
+                .andDo(print())
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(deviceService, never()).transitionStates(any());
+    }
+
+    @Test
+    void getDeviceStats_ShouldReturnTrackedCounts() throws Exception {
+        // Given
+        when(statsTracker.getStats()).thenReturn(DeviceStats.builder()
+                .total(3)
+                .byState(Map.of(DeviceState.AVAILABLE, 2L, DeviceState.IN_USE, 1L, DeviceState.INACTIVE, 0L))
+                .byBrand(Map.of("Apple", 3L))
+                .byBrandAndState(Map.of("Apple", Map.of(DeviceState.AVAILABLE, 2L, DeviceState.IN_USE, 1L)))
+                .build());
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices/stats"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.byState.IN_USE", is(1)))
+                .andExpect(jsonPath("$.byBrandAndState.Apple.AVAILABLE", is(2)));
+
+        verify(deviceService, never()).getDeviceById(any());
+    }
+
     @Test
     void getDeviceById_WhenDeviceExists_ShouldReturnDevice() throws Exception {
         // Given
@@ -127,11 +323,28 @@ class DeviceControllerTest {
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.name", is("iPhone 15 Pro")))
                 .andExpect(jsonPath("$.brand", is("Apple")))
-                .andExpect(jsonPath("$.state", is("AVAILABLE")));
+                .andExpect(jsonPath("$.state", is("AVAILABLE")))
+                .andExpect(jsonPath("$.version", is(0)))
+                .andExpect(header().string("ETag", "\"0\""));
 
         verify(deviceService, times(1)).getDeviceById(deviceId);
     }
 
+    @Test
+    void getDeviceById_WithMatchingIfNoneMatch_ShouldReturn304() throws Exception {
+        // Given
+        Long deviceId = 1L;
+        when(deviceService.getDeviceById(deviceId))
+                .thenReturn(createDeviceDTO(deviceId, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices/{id}", deviceId).header("If-None-Match", "\"0\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().string(""));
+    }
+
     @Test
     void getDeviceById_WhenDeviceDoesNotExist_ShouldReturnNotFound() throws Exception {
         // Given
@@ -191,7 +404,7 @@ class DeviceControllerTest {
         );
         Page<DeviceDTO> page = new PageImpl<>(deviceList);
 
-        when(deviceService.getAllDevices(0, 10, null)).thenReturn(page);
+        when(deviceService.getDevices(new DeviceFilter(), 0, 10, null)).thenReturn(page);
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices"))
@@ -203,14 +416,14 @@ class DeviceControllerTest {
                 .andExpect(jsonPath("$.content[1].name", is("Galaxy S23")))
                 .andExpect(jsonPath("$.content[2].name", is("Pixel 8")));
 
-        verify(deviceService, times(1)).getAllDevices(0, 10, null);
+        verify(deviceService, times(1)).getDevices(new DeviceFilter(), 0, 10, null);
     }
 
     @Test
     void getDevices_WhenNoDevices_ShouldReturnEmptyList() throws Exception {
         // Given
         Page<DeviceDTO> emptyPage = new PageImpl<>(Collections.emptyList());
-        when(deviceService.getAllDevices(0, 10, null)).thenReturn(emptyPage);
+        when(deviceService.getDevices(new DeviceFilter(), 0, 10, null)).thenReturn(emptyPage);
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices"))
@@ -218,7 +431,70 @@ class DeviceControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content", hasSize(0)));
 
-        verify(deviceService, times(1)).getAllDevices(0, 10, null);
+        verify(deviceService, times(1)).getDevices(new DeviceFilter(), 0, 10, null);
+    }
+
+    @Test
+    void getDevices_WithMatchingIfNoneMatch_ShouldReturn304WithoutLoadingDevices() throws Exception {
+        // Given
+        Page<DeviceDTO> page = new PageImpl<>(List.of(
+                createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE),
+                createDeviceDTO(2L, "Galaxy S23", "Samsung", DeviceState.IN_USE)));
+        Page<DeviceVersion> versions = new PageImpl<>(List.of(new DeviceVersion(1L, 0L), new DeviceVersion(2L, 0L)));
+
+        when(deviceService.getDevices(new DeviceFilter(), 0, 10, null)).thenReturn(page);
+        when(deviceService.getDeviceVersions(new DeviceFilter(), 0, 10, null, true)).thenReturn(versions);
+        String etag = mockMvc.perform(get("/device-service/v1/devices"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then - clients that drop the W/ prefix must match as well
+        mockMvc.perform(get("/device-service/v1/devices").header("If-None-Match", etag.substring(2)))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        verify(deviceService, times(1)).getDevices(new DeviceFilter(), 0, 10, null);
+    }
+
+    @Test
+    void getDevices_WithStaleIfNoneMatch_ShouldReturnPageAndNewETag() throws Exception {
+        // Given
+        Page<DeviceDTO> page = new PageImpl<>(List.of(createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE)));
+        Page<DeviceVersion> versions = new PageImpl<>(List.of(new DeviceVersion(1L, 0L)));
+
+        when(deviceService.getDevices(new DeviceFilter(), 0, 10, null)).thenReturn(page);
+        when(deviceService.getDeviceVersions(new DeviceFilter(), 0, 10, null, true)).thenReturn(versions);
+
+        // When & Then
+        MvcResult result = mockMvc.perform(get("/device-service/v1/devices").header("If-None-Match", "\"stale\""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andReturn();
+
+        assertThat(result.getResponse().getHeader("ETag")).startsWith("W/\"").isNotEqualTo("W/\"stale\"");
+        verify(deviceService, times(1)).getDevices(new DeviceFilter(), 0, 10, null);
+    }
+
+    @Test
+    void getDevices_WhenAVersionChanges_ShouldChangeETag() throws Exception {
+        // Given
+        DeviceDTO device = createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
+        DeviceDTO updated = new DeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.IN_USE, device.getCreationTime(), 1L);
+        when(deviceService.sliceDevices(new DeviceFilter(), 0, 10, null))
+                .thenReturn(new SliceImpl<>(List.of(device)))
+                .thenReturn(new SliceImpl<>(List.of(updated)));
+
+        // When
+        String before = mockMvc.perform(get("/device-service/v1/devices").param("withTotal", "false"))
+                .andReturn().getResponse().getHeader("ETag");
+        String after = mockMvc.perform(get("/device-service/v1/devices").param("withTotal", "false"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Then
+        assertThat(before).isNotNull().isNotEqualTo(after);
     }
 
     @Test
@@ -230,7 +506,7 @@ class DeviceControllerTest {
         );
         Page<DeviceDTO> page = new PageImpl<>(deviceList);
 
-        when(deviceService.getDevicesByBrand("Apple", 0, 10, null)).thenReturn(page);
+        when(deviceService.getDevices(DeviceFilter.builder().brand("Apple").build(), 0, 10, null)).thenReturn(page);
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices")
@@ -241,7 +517,7 @@ class DeviceControllerTest {
                 .andExpect(jsonPath("$.content[0].brand", is("Apple")))
                 .andExpect(jsonPath("$.content[1].brand", is("Apple")));
 
-        verify(deviceService, times(1)).getDevicesByBrand("Apple", 0, 10, null);
+        verify(deviceService, times(1)).getDevices(DeviceFilter.builder().brand("Apple").build(), 0, 10, null);
     }
 
     @Test
@@ -253,7 +529,7 @@ class DeviceControllerTest {
         );
         Page<DeviceDTO> page = new PageImpl<>(deviceList);
 
-        when(deviceService.getDevicesByState(DeviceState.AVAILABLE, 0, 10, null)).thenReturn(page);
+        when(deviceService.getDevices(DeviceFilter.builder().state(DeviceState.AVAILABLE).build(), 0, 10, null)).thenReturn(page);
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices")
@@ -264,7 +540,205 @@ class DeviceControllerTest {
                 .andExpect(jsonPath("$.content[0].state", is("AVAILABLE")))
                 .andExpect(jsonPath("$.content[1].state", is("AVAILABLE")));
 
-        verify(deviceService, times(1)).getDevicesByState(DeviceState.AVAILABLE, 0, 10, null);
+        verify(deviceService, times(1)).getDevices(DeviceFilter.builder().state(DeviceState.AVAILABLE).build(), 0, 10, null);
+    }
+
+    @Test
+    void getDevices_WithoutTotal_ShouldReturnSliceWithoutCount() throws Exception {
+        // Given
+        List<DeviceDTO> deviceList = List.of(createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE));
+        when(deviceService.sliceDevices(new DeviceFilter(), 0, 10, null)).thenReturn(new SliceImpl<>(deviceList));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("withTotal", "false"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.last", is(true)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        verify(deviceService, times(1)).sliceDevices(new DeviceFilter(), 0, 10, null);
+        verify(deviceService, never()).getDevices(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void getDevices_FilterByStateWithoutTotal_ShouldReturnSlice() throws Exception {
+        // Given
+        when(deviceService.sliceDevices(DeviceFilter.builder().state(DeviceState.IN_USE).build(), 1, 20, "name,asc"))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("state", "IN_USE")
+                        .param("page", "1")
+                        .param("size", "20")
+                        .param("sort", "name,asc")
+                        .param("withTotal", "false"))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(deviceService, times(1)).sliceDevices(DeviceFilter.builder().state(DeviceState.IN_USE).build(), 1, 20, "name,asc");
+        verify(deviceService, never()).getDevices(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void scrollDevices_WithEmptyCursor_ShouldReturnFirstWindow() throws Exception {
+        // Given
+        CursorPage<DeviceDTO> window = new CursorPage<>(
+                List.of(createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE)), "abc", 1, null);
+
+        when(deviceService.scrollDevices(new DeviceFilter(), "", 10, null)).thenReturn(window);
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("after", ""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor", is("abc")))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.truncated").doesNotExist());
+
+        verify(deviceService, times(1)).scrollDevices(new DeviceFilter(), "", 10, null);
+        verify(deviceService, never()).getDevices(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void scrollDevices_WithSizeOutOfRange_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(deviceService.scrollDevices(new DeviceFilter(), "", 0, null))
+                .thenThrow(new InvalidPageSizeException(1000));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("after", "")
+                        .param("size", "0"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Page size must be between 1 and 1000")));
+    }
+
+    @Test
+    void scrollDevices_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(deviceService.scrollDevices(DeviceFilter.builder().brand("Apple").build(), "garbage", 5, null))
+                .thenThrow(new InvalidCursorException("Malformed cursor"));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("brand", "Apple")
+                        .param("after", "garbage")
+                        .param("size", "5"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Malformed cursor")));
+    }
+
+    @Test
+    void searchDevices_ShouldReturnMatchesWithCursor() throws Exception {
+        // Given
+        CursorPage<DeviceDTO> hits = new CursorPage<>(
+                List.of(createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE)), "next", 1, false);
+
+        when(deviceService.searchDevices("iphone", null, 1)).thenReturn(hits);
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices/search")
+                        .param("q", "iphone")
+                        .param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name", is("iPhone 15 Pro")))
+                .andExpect(jsonPath("$.nextCursor", is("next")))
+                .andExpect(jsonPath("$.truncated", is(false)));
+    }
+
+    @Test
+    void searchDevices_WithShortQuery_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(deviceService.searchDevices("ip", null, 10))
+                .thenThrow(new InvalidSearchQueryException("Search query must have at least 3 characters"));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices/search")
+                        .param("q", "ip"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Search query must have at least 3 characters")));
+    }
+
+    @Test
+    void streamDevices_ShouldSubscribeWithFiltersAndLastEventId() throws Exception {
+        // Given
+        when(eventBroadcaster.subscribe("Apple", DeviceState.IN_USE, 41L)).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .param("brand", "Apple")
+                        .param("state", "IN_USE")
+                        .header("Last-Event-ID", "41"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(eventBroadcaster, times(1)).subscribe("Apple", DeviceState.IN_USE, 41L);
+        verify(deviceService, never()).getDeviceById(any());
+    }
+
+    @Test
+    void exportDevices_ShouldStreamNdjson() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<DeviceDTO> sink = invocation.getArgument(0);
+            sink.accept(createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE));
+            sink.accept(createDeviceDTO(2L, "Pixel 8", "Google", DeviceState.INACTIVE));
+            return null;
+        }).when(deviceService).exportDevices(any());
+
+        // When
+        MvcResult asyncResult = mockMvc.perform(get("/device-service/v1/devices/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[1]).get("name").asText()).isEqualTo("Pixel 8");
+    }
+
+    @Test
+    void exportDevices_WhenClientAcceptsGzip_ShouldCompressStream() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<DeviceDTO> sink = invocation.getArgument(0);
+            sink.accept(createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE));
+            return null;
+        }).when(deviceService).exportDevices(any());
+
+        // When
+        MvcResult asyncResult = mockMvc.perform(get("/device-service/v1/devices/export")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            String line = new String(gzip.readAllBytes(), StandardCharsets.UTF_8).trim();
+            assertThat(objectMapper.readTree(line).get("id").asLong()).isEqualTo(1L);
+        }
     }
 
     @Test
@@ -272,7 +746,7 @@ class DeviceControllerTest {
         // Given
         Long deviceId = 1L;
         DeviceUpdateRequest request = createUpdateRequest("iPhone 15 Pro Max", "Apple", null);
-        DeviceUpdateCommand command = new DeviceUpdateCommand("iPhone 15 Pro Max", "Apple", null);
+        DeviceUpdateCommand command = new DeviceUpdateCommand("iPhone 15 Pro Max", "Apple", null, null);
         DeviceDTO response = createDeviceDTO(deviceId, "iPhone 15 Pro Max", "Apple", DeviceState.AVAILABLE);
 
         when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class))).thenReturn(command);
@@ -290,12 +764,95 @@ class DeviceControllerTest {
         verify(deviceService, times(1)).updateDevice(eq(deviceId), any(DeviceUpdateCommand.class));
     }
 
+    @Test
+    void updateDevice_WithIfMatch_ShouldPassExpectedVersionAndReturnNewETag() throws Exception {
+        // Given
+        Long deviceId = 1L;
+        DeviceUpdateRequest request = createUpdateRequest(null, null, DeviceState.IN_USE);
+        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null);
+        DeviceDTO response = createDeviceDTO(deviceId, "iPhone 15", "Apple", DeviceState.IN_USE);
+        response.setVersion(4L);
+
+        when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class))).thenReturn(command);
+        when(deviceService.updateDevice(eq(deviceId), any(DeviceUpdateCommand.class))).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", deviceId)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version", is(4)));
+
+        ArgumentCaptor<DeviceUpdateCommand> captor = ArgumentCaptor.forClass(DeviceUpdateCommand.class);
+        verify(deviceService).updateDevice(eq(deviceId), captor.capture());
+        assertThat(captor.getValue().getExpectedVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void updateDevice_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // Given
+        Long deviceId = 1L;
+        DeviceUpdateRequest request = createUpdateRequest("iPhone 15 Pro", null, null);
+
+        when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class)))
+                .thenReturn(new DeviceUpdateCommand("iPhone 15 Pro", null, null, null));
+        when(deviceService.updateDevice(eq(deviceId), any(DeviceUpdateCommand.class)))
+                .thenThrow(new DeviceVersionMismatchException(deviceId, 3L, 4L));
+
+        // When & Then
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", deviceId)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message", is("Device with id 1 is at version 4, but version 3 was expected")));
+    }
+
+    @Test
+    void updateDevice_WithWeakIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // Given
+        DeviceUpdateRequest request = createUpdateRequest("iPhone 15 Pro", null, null);
+
+        when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class)))
+                .thenReturn(new DeviceUpdateCommand("iPhone 15 Pro", null, null, null));
+
+        // When & Then
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", 1L)
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(deviceService, never()).updateDevice(any(), any());
+    }
+
+    @Test
+    void updateDevice_WhenConflictPersistsAfterRetries_ShouldReturnConflict() throws Exception {
+        // Given
+        Long deviceId = 1L;
+        DeviceUpdateRequest request = createUpdateRequest(null, null, DeviceState.IN_USE);
+
+        when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class)))
+                .thenReturn(new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null));
+        when(deviceService.updateDevice(eq(deviceId), any(DeviceUpdateCommand.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException("DeviceEntity", deviceId));
+
+        // When & Then
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", deviceId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is(409)));
+    }
+
     @Test
     void updateDevice_NonExistentDevice_ShouldReturnNotFound() throws Exception {
         // Given
         Long deviceId = 999L;
         DeviceUpdateRequest request = createUpdateRequest(null, null, DeviceState.INACTIVE);
-        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, DeviceState.INACTIVE);
+        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, DeviceState.INACTIVE, null);
 
         when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class))).thenReturn(command);
         when(deviceService.updateDevice(eq(deviceId), any(DeviceUpdateCommand.class)))
@@ -317,7 +874,7 @@ class DeviceControllerTest {
         // Given
         Long deviceId = 1L;
         DeviceUpdateRequest request = createUpdateRequest("Updated Name", "Updated Brand", DeviceState.INACTIVE);
-        DeviceUpdateCommand command = new DeviceUpdateCommand("Updated Name", "Updated Brand", DeviceState.INACTIVE);
+        DeviceUpdateCommand command = new DeviceUpdateCommand("Updated Name", "Updated Brand", DeviceState.INACTIVE, null);
         DeviceDTO response = createDeviceDTO(deviceId, "Updated Name", "Updated Brand", DeviceState.INACTIVE);
 
         when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class))).thenReturn(command);
@@ -342,7 +899,7 @@ class DeviceControllerTest {
         // Given
         Long deviceId = 1L;
         DeviceUpdateRequest request = createUpdateRequest(null, null, null);
-        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, null);
+        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, null, null);
         DeviceDTO response = createDeviceDTO(deviceId, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
 
         when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class))).thenReturn(command);
@@ -364,7 +921,7 @@ class DeviceControllerTest {
         // Given
         Long deviceId = 1L;
         DeviceUpdateRequest request = createUpdateRequest(null, null, DeviceState.IN_USE);
-        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, DeviceState.IN_USE);
+        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null);
         DeviceDTO response = createDeviceDTO(deviceId, "iPhone 15 Pro", "Apple", DeviceState.IN_USE);
 
         when(deviceMapper.toUpdateCommand(any(DeviceUpdateRequest.class))).thenReturn(command);
@@ -389,7 +946,7 @@ class DeviceControllerTest {
                 new DeviceUpdateRequest(null, null, DeviceState.AVAILABLE);
 
         DeviceUpdateCommand command =
-                new DeviceUpdateCommand(null, null, DeviceState.AVAILABLE);
+                new DeviceUpdateCommand(null, null, DeviceState.AVAILABLE, null);
 
         DeviceDTO response =
                 createDeviceDTO(deviceId, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
@@ -493,14 +1050,14 @@ class DeviceControllerTest {
                 .andDo(print())
                 .andExpect(status().isBadRequest());
 
-        verify(deviceService, never()).getDevicesByState(any(), anyInt(), anyInt(), any());
+        verify(deviceService, never()).getDevices(any(), anyInt(), anyInt(), any());
     }
 
     @Test
     void getDevices_WithNegativePageNumber_ShouldAcceptRequest() throws Exception {
         // Given
         Page<DeviceDTO> emptyPage = new PageImpl<>(Collections.emptyList());
-        when(deviceService.getAllDevices(-1, 10, null)).thenReturn(emptyPage);
+        when(deviceService.getDevices(new DeviceFilter(), -1, 10, null)).thenReturn(emptyPage);
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices")
@@ -508,14 +1065,14 @@ class DeviceControllerTest {
                 .andDo(print())
                 .andExpect(status().isOk());
 
-        verify(deviceService, times(1)).getAllDevices(-1, 10, null);
+        verify(deviceService, times(1)).getDevices(new DeviceFilter(), -1, 10, null);
     }
 
     @Test
     void getDevices_WithLargePageSize_ShouldAcceptRequest() throws Exception {
         // Given
         Page<DeviceDTO> page = new PageImpl<>(Collections.emptyList());
-        when(deviceService.getAllDevices(0, 1000, null)).thenReturn(page);
+        when(deviceService.getDevices(new DeviceFilter(), 0, 1000, null)).thenReturn(page);
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices")
@@ -523,18 +1080,21 @@ class DeviceControllerTest {
                 .andDo(print())
                 .andExpect(status().isOk());
 
-        verify(deviceService, times(1)).getAllDevices(0, 1000, null);
+        verify(deviceService, times(1)).getDevices(new DeviceFilter(), 0, 1000, null);
     }
 
     @Test
-    void getDevices_WithMultipleParams_ShouldPrioritizeBrand() throws Exception {
-        // Given - When both brand and state are provided, brand takes precedence
+    void getDevices_WithMultipleParams_ShouldCombineFilters() throws Exception {
+        // Given - every criterion that is set narrows the result
         List<DeviceDTO> deviceList = List.of(
                 createDeviceDTO(1L, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE)
         );
-        Page<DeviceDTO> page = new PageImpl<>(deviceList);
+        DeviceFilter filter = DeviceFilter.builder()
+                .brand("Apple")
+                .state(DeviceState.AVAILABLE)
+                .build();
 
-        when(deviceService.getDevicesByBrand("Apple", 0, 10, "name,asc")).thenReturn(page);
+        when(deviceService.getDevices(filter, 0, 10, "name,asc")).thenReturn(new PageImpl<>(deviceList));
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices")
@@ -542,10 +1102,47 @@ class DeviceControllerTest {
                         .param("state", "AVAILABLE")
                         .param("sort", "name,asc"))
                 .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)));
+
+        verify(deviceService, times(1)).getDevices(filter, 0, 10, "name,asc");
+    }
+
+    @Test
+    void getDevices_WithNamePrefixAndCreationRange_ShouldBindFilter() throws Exception {
+        // Given
+        ArgumentCaptor<DeviceFilter> filterCaptor = ArgumentCaptor.forClass(DeviceFilter.class);
+        when(deviceService.getDevices(filterCaptor.capture(), eq(0), eq(10), isNull()))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("namePrefix", "iPhone")
+                        .param("createdFrom", "2024-01-01T00:00:00Z")
+                        .param("createdTo", "2025-01-01T00:00:00Z"))
+                .andDo(print())
                 .andExpect(status().isOk());
 
-        verify(deviceService, times(1)).getDevicesByBrand("Apple", 0, 10, "name,asc");
-        verify(deviceService, never()).getDevicesByState(any(), anyInt(), anyInt(), any());
+        DeviceFilter filter = filterCaptor.getValue();
+        assertThat(filter.getNamePrefix()).isEqualTo("iPhone");
+        assertThat(filter.getCreatedFrom()).isEqualTo(OffsetDateTime.parse("2024-01-01T00:00:00Z"));
+        assertThat(filter.getCreatedTo()).isEqualTo(OffsetDateTime.parse("2025-01-01T00:00:00Z"));
+        assertThat(filter.getBrand()).isNull();
+        assertThat(filter.getState()).isNull();
+    }
+
+    @Test
+    void getDevices_WithUnsupportedSort_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(deviceService.getDevices(new DeviceFilter(), 0, 10, "version,asc"))
+                .thenThrow(new InvalidSortException("Sorting by 'version' is not supported"));
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("sort", "version,asc"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Sorting by 'version' is not supported")));
     }
 
     @Test
@@ -603,7 +1200,7 @@ class DeviceControllerTest {
         // Given
         String brandWithSpecialChars = "LG&Samsung";
         Page<DeviceDTO> page = new PageImpl<>(Collections.emptyList());
-        when(deviceService.getDevicesByBrand(brandWithSpecialChars, 0, 10, null)).thenReturn(page);
+        when(deviceService.getDevices(DeviceFilter.builder().brand(brandWithSpecialChars).build(), 0, 10, null)).thenReturn(page);
 
         // When & Then
         mockMvc.perform(get("/device-service/v1/devices")
@@ -611,7 +1208,7 @@ class DeviceControllerTest {
                 .andDo(print())
                 .andExpect(status().isOk());
 
-        verify(deviceService, times(1)).getDevicesByBrand(brandWithSpecialChars, 0, 10, null);
+        verify(deviceService, times(1)).getDevices(DeviceFilter.builder().brand(brandWithSpecialChars).build(), 0, 10, null);
     }
 
     private DeviceCreateRequest createDeviceRequest(String name) {
@@ -619,7 +1216,7 @@ class DeviceControllerTest {
     }
 
     private DeviceDTO createDeviceDTO(Long id, String name, String brand, DeviceState state) {
-        return new DeviceDTO(id, name, brand, state, OffsetDateTime.now());
+        return new DeviceDTO(id, name, brand, state, OffsetDateTime.now(), 0L);
     }
 
     private DeviceUpdateRequest createUpdateRequest(String name, String brand, DeviceState state) {
@@ -0,0 +1,118 @@
+package org.hometask.devicesapi.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource firstReplica;
+
+    @Mock
+    private DataSource secondReplica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection firstConnection;
+
+    @Mock
+    private Connection secondConnection;
+
+    @Test
+    void getConnection_ShouldRotateOverReplicas() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenReturn(firstConnection);
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+        ReplicaRoutingDataSource dataSource = routing(Duration.ofSeconds(30));
+
+        // When
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            connections.add(dataSource.getConnection());
+        }
+
+        // Then
+        assertThat(connections).containsExactly(firstConnection, secondConnection, firstConnection, secondConnection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_WhenAReplicaFails_ShouldSkipItUntilRetryAfter() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenThrow(new SQLTransientConnectionException("timed out"));
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+        ReplicaRoutingDataSource dataSource = routing(Duration.ofSeconds(30));
+
+        // When
+        Connection failedOver = dataSource.getConnection();
+        Connection next = dataSource.getConnection();
+        Connection afterNext = dataSource.getConnection();
+
+        // Then
+        assertThat(List.of(failedOver, next, afterNext)).containsOnly(secondConnection);
+        verify(firstReplica, times(1)).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_WhenNoReplicaIsAvailable_ShouldFallBackToPrimary() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenThrow(new SQLTransientConnectionException("timed out"));
+        when(secondReplica.getConnection()).thenThrow(new SQLTransientConnectionException("timed out"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource dataSource = routing(Duration.ofSeconds(30));
+
+        // When
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        // Then
+        assertThat(first).isSameAs(primaryConnection);
+        assertThat(second).isSameAs(primaryConnection);
+        verify(firstReplica, times(1)).getConnection();
+        verify(secondReplica, times(1)).getConnection();
+    }
+
+    @Test
+    void getConnection_AfterRetryAfter_ShouldTryARecoveredReplicaAgain() throws SQLException {
+        // Given
+        when(firstReplica.getConnection())
+                .thenThrow(new SQLTransientConnectionException("timed out"))
+                .thenReturn(firstConnection);
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+        ReplicaRoutingDataSource dataSource = routing(Duration.ZERO);
+
+        // When
+        Connection failedOver = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        Connection recovered = dataSource.getConnection();
+
+        // Then
+        assertThat(failedOver).isSameAs(secondConnection);
+        assertThat(second).isSameAs(secondConnection);
+        assertThat(recovered).isSameAs(firstConnection);
+    }
+
+    private ReplicaRoutingDataSource routing(Duration retryAfter) {
+        return new ReplicaRoutingDataSource(List.of(firstReplica, secondReplica), primary, retryAfter);
+    }
+}
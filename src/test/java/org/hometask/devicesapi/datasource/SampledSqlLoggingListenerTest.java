@@ -0,0 +1,103 @@
+package org.hometask.devicesapi.datasource;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledSqlLoggingListenerTest {
+
+    private static final List<QueryInfo> QUERIES = List.of(new QueryInfo("SELECT * FROM device WHERE id = ?"));
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SampledSqlLoggingListener.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void afterQuery_WhenSlow_ShouldLogAtWarnEvenWithoutSampling() {
+        // Given
+        SampledSqlLoggingListener listener = new SampledSqlLoggingListener(0, Duration.ofMillis(100));
+
+        // When
+        listener.afterQuery(execution(250), QUERIES);
+
+        // Then
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.WARN);
+            assertThat(event.getFormattedMessage())
+                    .startsWith("Slow SQL")
+                    .contains("Time:250")
+                    .contains("Query:[\"SELECT * FROM device WHERE id = ?\"]");
+        });
+    }
+
+    @Test
+    void afterQuery_WhenFastAndNotSampled_ShouldNotLog() {
+        // Given
+        SampledSqlLoggingListener listener = new SampledSqlLoggingListener(0, Duration.ofMillis(100));
+
+        // When
+        listener.afterQuery(execution(5), QUERIES);
+
+        // Then
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void afterQuery_WhenSampled_ShouldLogAtInfo() {
+        // Given
+        SampledSqlLoggingListener listener = new SampledSqlLoggingListener(1, Duration.ofMillis(100));
+
+        // When
+        listener.afterQuery(execution(5), QUERIES);
+        listener.afterQuery(execution(6), QUERIES);
+
+        // Then
+        assertThat(appender.list).hasSize(2).allSatisfy(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.INFO);
+            assertThat(event.getFormattedMessage()).startsWith("SQL");
+        });
+    }
+
+    @Test
+    void afterQuery_WithZeroSlowThreshold_ShouldNotTreatAnyStatementAsSlow() {
+        // Given
+        SampledSqlLoggingListener listener = new SampledSqlLoggingListener(0, Duration.ZERO);
+
+        // When
+        listener.afterQuery(execution(60_000), QUERIES);
+
+        // Then
+        assertThat(appender.list).isEmpty();
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setSuccess(true);
+        execution.setStatementType(StatementType.PREPARED);
+        return execution;
+    }
+}
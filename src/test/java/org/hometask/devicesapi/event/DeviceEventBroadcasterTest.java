@@ -0,0 +1,217 @@
+package org.hometask.devicesapi.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.hometask.devicesapi.config.DeviceStreamProperties;
+import org.hometask.devicesapi.dto.DeviceChangeEvent;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.model.DeviceState;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceEventBroadcasterTest {
+
+    private static final DeviceStreamProperties PROPERTIES =
+            new DeviceStreamProperties(3, 5, Duration.ofMinutes(1), Duration.ofSeconds(15));
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void publish_ShouldSendMatchingEventsOnly() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        RecordingEmitter inUse = new RecordingEmitter();
+        RecordingEmitter apple = new RecordingEmitter();
+        broadcaster.subscribe(inUse, null, DeviceState.IN_USE, null);
+        broadcaster.subscribe(apple, "Apple", null, null);
+
+        // When
+        broadcaster.publish(created(1L, "Apple", DeviceState.AVAILABLE));
+        broadcaster.publish(created(2L, "Samsung", DeviceState.IN_USE));
+
+        // Then
+        assertThat(inUse.frames).hasSize(1);
+        assertThat(inUse.frames.get(0)).contains("id:2", "event:created", "\"deviceId\":2");
+        assertThat(apple.frames).hasSize(1);
+        assertThat(apple.frames.get(0)).contains("id:1", "\"brand\":\"Apple\"");
+    }
+
+    @Test
+    void publish_UpdateLeavingFilter_ShouldStillReachSubscriber() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        RecordingEmitter inUse = new RecordingEmitter();
+        broadcaster.subscribe(inUse, null, DeviceState.IN_USE, null);
+
+        // When
+        broadcaster.publish(DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.UPDATED)
+                .deviceId(1L)
+                .device(device(1L, "Apple", DeviceState.AVAILABLE))
+                .previous(device(1L, "Apple", DeviceState.IN_USE))
+                .build());
+        broadcaster.publish(DeviceChangeEvent.builder().type(DeviceChangeEvent.Type.DELETED).deviceId(7L).build());
+
+        // Then
+        assertThat(inUse.frames).hasSize(2);
+        assertThat(inUse.frames.get(0)).contains("event:updated");
+        assertThat(inUse.frames.get(1)).contains("event:deleted", "\"deviceId\":7").doesNotContain("\"device\"");
+    }
+
+    @Test
+    void publish_DeleteOutsideFilter_ShouldBeSkipped() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        RecordingEmitter inUse = new RecordingEmitter();
+        broadcaster.subscribe(inUse, null, DeviceState.IN_USE, null);
+
+        // When
+        broadcaster.publish(DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.DELETED)
+                .deviceId(3L)
+                .previous(device(3L, "Apple", DeviceState.INACTIVE))
+                .build());
+
+        // Then
+        assertThat(inUse.frames).isEmpty();
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ShouldReplayMissedEvents() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        broadcaster.publish(created(1L, "Apple", DeviceState.AVAILABLE));
+        broadcaster.publish(created(2L, "Apple", DeviceState.AVAILABLE));
+        broadcaster.publish(created(3L, "Apple", DeviceState.AVAILABLE));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        broadcaster.subscribe(emitter, null, null, 1L);
+        broadcaster.publish(created(4L, "Apple", DeviceState.AVAILABLE));
+
+        // Then
+        assertThat(emitter.frames).extracting(frame -> frame.lines().findFirst().orElseThrow())
+                .containsExactly("id:2", "id:3", "id:4");
+    }
+
+    @Test
+    void subscribe_WithEvictedLastEventId_ShouldSendReset() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        for (long id = 1; id <= 8; id++) {
+            broadcaster.publish(created(id, "Apple", DeviceState.AVAILABLE));
+        }
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When - only events 4..8 are retained
+        broadcaster.subscribe(emitter, null, null, 1L);
+
+        // Then
+        assertThat(emitter.frames).hasSize(1);
+        assertThat(emitter.frames.get(0)).contains("id:8", "event:" + DeviceEventBroadcaster.RESET_EVENT);
+    }
+
+    @Test
+    void subscribe_WithLastEventIdFromBeforeRestart_ShouldSendReset() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        broadcaster.subscribe(emitter, null, null, 500L);
+
+        // Then
+        assertThat(emitter.frames).singleElement().asString().contains("event:" + DeviceEventBroadcaster.RESET_EVENT);
+    }
+
+    @Test
+    void publish_ToSubscriberThatFellBehind_ShouldDisconnectIt() {
+        // Given - tasks are never run, so nothing drains the subscriber's buffer
+        List<Runnable> pending = new ArrayList<>();
+        Executor stalled = pending::add;
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, stalled);
+        RecordingEmitter slow = new RecordingEmitter();
+        broadcaster.subscribe(slow, null, null, null);
+
+        // When - buffer of 3 plus the reserved slot
+        for (long id = 1; id <= 5; id++) {
+            broadcaster.publish(created(id, "Apple", DeviceState.AVAILABLE));
+        }
+
+        // Then
+        assertThat(slow.completed).isTrue();
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void publish_WhenSendFails_ShouldDropSubscriber() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        RecordingEmitter broken = new RecordingEmitter();
+        broken.failing = true;
+        broadcaster.subscribe(broken, null, null, null);
+
+        // When
+        broadcaster.publish(created(1L, "Apple", DeviceState.AVAILABLE));
+
+        // Then
+        assertThat(broken.completed).isTrue();
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void sendHeartbeats_ShouldWriteCommentToEverySubscriber() {
+        // Given
+        DeviceEventBroadcaster broadcaster = new DeviceEventBroadcaster(PROPERTIES, objectMapper, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter, "Apple", null, null);
+
+        // When
+        broadcaster.sendHeartbeats();
+
+        // Then
+        assertThat(emitter.frames).singleElement().asString().startsWith(":heartbeat");
+    }
+
+    private static DeviceChangeEvent created(Long id, String brand, DeviceState state) {
+        return DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.CREATED)
+                .deviceId(id)
+                .device(device(id, brand, state))
+                .build();
+    }
+
+    private static DeviceDTO device(Long id, String brand, DeviceState state) {
+        return DeviceDTO.builder().id(id).name("Device " + id).brand(brand).state(state).version(0L).build();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> frames = new ArrayList<>();
+        private boolean completed;
+        private boolean failing;
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            frames.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
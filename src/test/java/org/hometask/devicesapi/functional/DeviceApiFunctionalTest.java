@@ -2,9 +2,12 @@ package org.hometask.devicesapi.functional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hometask.devicesapi.dto.DeviceCreateRequest;
+import org.hometask.devicesapi.dto.DeviceStateTransitionRequest;
 import org.hometask.devicesapi.dto.DeviceUpdateRequest;
+import org.hometask.devicesapi.model.DeviceEntity;
 import org.hometask.devicesapi.model.DeviceState;
 import org.hometask.devicesapi.repository.DeviceRepository;
+import org.hometask.devicesapi.stats.DeviceStatsTracker;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +22,14 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -51,6 +62,9 @@ class DeviceApiFunctionalTest {
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private DeviceStatsTracker statsTracker;
+
     @AfterEach
     void cleanup() {
         deviceRepository.deleteAll();
@@ -190,6 +204,36 @@ class DeviceApiFunctionalTest {
                 .andExpect(jsonPath("$.content[*].brand", everyItem(is("Apple"))));
     }
 
+    @Test
+    void getDevices_WithIfNoneMatch_ShouldReturn304UntilAPageDeviceChanges() throws Exception {
+        // Given
+        MvcResult created = mockMvc.perform(post("/device-service/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeviceCreateRequest("iPhone 15", "Apple"))))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+        String etag = mockMvc.perform(get("/device-service/v1/devices").param("brand", "Apple"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/device-service/v1/devices").param("brand", "Apple").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeviceUpdateRequest("iPhone 15 Pro", null, null))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/device-service/v1/devices").param("brand", "Apple").header("If-None-Match", etag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.content[0].name", is("iPhone 15 Pro")));
+    }
+
     @Test
     void getDevicesByState_WithAvailableState_ShouldReturnAvailableDevices() throws Exception {
         // Given - All newly created devices are AVAILABLE by default
@@ -214,6 +258,53 @@ class DeviceApiFunctionalTest {
                 .andExpect(jsonPath("$.content[*].state", everyItem(is("AVAILABLE"))));
     }
 
+    @Test
+    void getDevices_WithCombinedFilters_ShouldMatchEveryCriterion() throws Exception {
+        // Given
+        for (String name : List.of("iPhone 15", "iPhone 14", "iPad Air")) {
+            mockMvc.perform(post("/device-service/v1/devices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new DeviceCreateRequest(name, "Apple"))))
+                    .andExpect(status().isCreated());
+        }
+        mockMvc.perform(post("/device-service/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeviceCreateRequest("iPhone clone", "Other"))))
+                .andExpect(status().isCreated());
+
+        // When & Then - page, slice and keyset listings apply the same filter
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("brand", "Apple")
+                        .param("state", "AVAILABLE")
+                        .param("namePrefix", "iPhone")
+                        .param("createdFrom", OffsetDateTime.now().minusHours(1).toString())
+                        .param("sort", "name,asc"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(2)))
+                .andExpect(jsonPath("$.content[*].name", contains("iPhone 14", "iPhone 15")));
+
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("brand", "Apple")
+                        .param("namePrefix", "iPhone")
+                        .param("withTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)));
+
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("brand", "Apple")
+                        .param("namePrefix", "iPhone")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)));
+
+        mockMvc.perform(get("/device-service/v1/devices")
+                        .param("brand", "Apple")
+                        .param("createdTo", OffsetDateTime.now().minusHours(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(0)));
+    }
+
     @Test
     void updateDevice_StateOnly_ShouldUpdateSuccessfully() throws Exception {
         // Given - Create device
@@ -262,6 +353,43 @@ class DeviceApiFunctionalTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void updateDevice_WithStaleIfMatch_ShouldReturn412() throws Exception {
+        // Given - Create device and read its ETag
+        MvcResult createResult = mockMvc.perform(post("/device-service/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeviceCreateRequest("iPhone 15", "Apple"))))
+                .andReturn();
+
+        Long deviceId = objectMapper.readTree(createResult.getResponse().getContentAsString()).get("id").asLong();
+
+        String etag = mockMvc.perform(get("/device-service/v1/devices/{id}", deviceId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", deviceId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new DeviceUpdateRequest(null, null, DeviceState.IN_USE))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        // When & Then - A second writer still holding the old ETag must not overwrite the change
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", deviceId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new DeviceUpdateRequest(null, null, DeviceState.INACTIVE))))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/device-service/v1/devices/{id}", deviceId))
+                .andExpect(jsonPath("$.state", is("IN_USE")))
+                .andExpect(jsonPath("$.version", is(1)));
+    }
+
     @Test
     void updateDevice_NonExistentDevice_ShouldReturn404() throws Exception {
         // Given
@@ -276,6 +404,108 @@ class DeviceApiFunctionalTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void scrollDevices_ShouldWalkAllDevicesWithoutGapsOrDuplicates() throws Exception {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/device-service/v1/devices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new DeviceCreateRequest("Device " + (i % 2), "Brand"))))
+                    .andExpect(status().isCreated());
+        }
+
+        // When
+        Set<Long> seen = new HashSet<>();
+        String after = "";
+        int windows = 0;
+        do {
+            MvcResult result = mockMvc.perform(get("/device-service/v1/devices")
+                            .param("after", after)
+                            .param("size", "2")
+                            .param("sort", "name,desc"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn();
+            var body = objectMapper.readTree(result.getResponse().getContentAsString());
+            body.get("content").forEach(device -> seen.add(device.get("id").asLong()));
+            after = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+            windows++;
+        } while (after != null);
+
+        // Then
+        assertThat(seen).hasSize(5);
+        assertThat(windows).isEqualTo(3);
+    }
+
+    @Test
+    void searchDevices_ShouldRankMatchesAndPageThroughThem() throws Exception {
+        // Given
+        for (DeviceCreateRequest request : List.of(new DeviceCreateRequest("iPhone 15", "Apple"),
+                new DeviceCreateRequest("Galaxy S24", "Samsung"),
+                new DeviceCreateRequest("iPhone 15 Pro", "Apple"),
+                new DeviceCreateRequest("Iphone case", "Acme"),
+                new DeviceCreateRequest("Pixel 8", "Google"))) {
+            mockMvc.perform(post("/device-service/v1/devices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+
+        // When
+        List<String> names = new ArrayList<>();
+        String after = "";
+        do {
+            MvcResult result = mockMvc.perform(get("/device-service/v1/devices/search")
+                            .param("q", "iphone 15")
+                            .param("after", after)
+                            .param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            var body = objectMapper.readTree(result.getResponse().getContentAsString());
+            body.get("content").forEach(device -> names.add(device.get("name").asText()));
+            after = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+        } while (after != null);
+
+        // Then - exact word matches rank first, each device appears once
+        assertThat(names).startsWith("iPhone 15", "iPhone 15 Pro").doesNotHaveDuplicates()
+                .doesNotContain("Galaxy S24", "Pixel 8");
+
+        mockMvc.perform(get("/device-service/v1/devices/search").param("q", "ip"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchDevices_WithHundredsOfWeakerMatches_ShouldRankTheNewestBestHitFirst() throws Exception {
+        // Given - 250 partial matches created before the exact one, which gets the highest id
+        deviceRepository.saveAll(IntStream.range(0, 250)
+                .mapToObj(i -> DeviceEntity.builder()
+                        .name("Pixel case").brand("Acme").state(DeviceState.AVAILABLE).build())
+                .toList());
+        mockMvc.perform(post("/device-service/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeviceCreateRequest("Pixel 8", "Google"))))
+                .andExpect(status().isCreated());
+
+        // When
+        List<String> names = new ArrayList<>();
+        String after = "";
+        do {
+            MvcResult result = mockMvc.perform(get("/device-service/v1/devices/search")
+                            .param("q", "pixel 8")
+                            .param("after", after)
+                            .param("size", "50"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.truncated", is(false)))
+                    .andReturn();
+            var body = objectMapper.readTree(result.getResponse().getContentAsString());
+            body.get("content").forEach(device -> names.add(device.get("name").asText()));
+            after = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+        } while (after != null);
+
+        // Then
+        assertThat(names).hasSize(251).startsWith("Pixel 8");
+    }
+
     @Test
     void deleteDevice_AvailableDevice_ShouldReturn204() throws Exception {
         // Given - Create device (AVAILABLE by default)
@@ -348,4 +578,109 @@ class DeviceApiFunctionalTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.state", is("IN_USE")));
     }
+
+    @Test
+    void transitionStates_ByBrand_ShouldMoveIdleDevicesAndKeepInUseOnes() throws Exception {
+        // Given - two idle Apple devices, one Apple device IN_USE and one Samsung device
+        List<Long> appleIds = new ArrayList<>();
+        for (String name : List.of("iPhone 13", "iPhone 14", "iPhone 15")) {
+            MvcResult createResult = mockMvc.perform(post("/device-service/v1/devices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new DeviceCreateRequest(name, "Apple"))))
+                    .andReturn();
+            appleIds.add(objectMapper.readTree(createResult.getResponse().getContentAsString()).get("id").asLong());
+        }
+        mockMvc.perform(post("/device-service/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeviceCreateRequest("Galaxy S23", "Samsung"))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", appleIds.get(2))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new DeviceUpdateRequest(null, null, DeviceState.IN_USE))))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/state-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DeviceStateTransitionRequest.builder()
+                                .brand("Apple")
+                                .state(DeviceState.INACTIVE)
+                                .build())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(2)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[0].id", is(appleIds.get(0).intValue())))
+                .andExpect(jsonPath("$.results[0].version", is(1)))
+                .andExpect(jsonPath("$.results[2].status", is("IN_USE")));
+
+        mockMvc.perform(get("/device-service/v1/devices/{id}", appleIds.get(0)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.state", is("INACTIVE")));
+        mockMvc.perform(get("/device-service/v1/devices").param("state", "INACTIVE"))
+                .andExpect(jsonPath("$.totalElements", is(2)));
+    }
+
+    @Test
+    void transitionStates_ByIds_ShouldReportMissingDevices() throws Exception {
+        // Given
+        MvcResult createResult = mockMvc.perform(post("/device-service/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeviceCreateRequest("Pixel 8", "Google"))))
+                .andReturn();
+        Long deviceId = objectMapper.readTree(createResult.getResponse().getContentAsString()).get("id").asLong();
+
+        // When & Then
+        mockMvc.perform(post("/device-service/v1/devices/state-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DeviceStateTransitionRequest.builder()
+                                .ids(List.of(deviceId, 999999L))
+                                .state(DeviceState.INACTIVE)
+                                .build())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status", is("UPDATED")))
+                .andExpect(jsonPath("$.results[1].status", is("NOT_FOUND")));
+    }
+
+    @Test
+    void getDeviceStats_ShouldFollowCreatesUpdatesAndDeletes() throws Exception {
+        // Given - counts match the table that other tests cleaned up directly
+        statsTracker.reconcile();
+        List<Long> ids = new ArrayList<>();
+        for (DeviceCreateRequest request : List.of(new DeviceCreateRequest("iPhone 15", "Apple"),
+                new DeviceCreateRequest("iPhone 14", "Apple"), new DeviceCreateRequest("Pixel 8", "Google"))) {
+            MvcResult createResult = mockMvc.perform(post("/device-service/v1/devices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andReturn();
+            ids.add(objectMapper.readTree(createResult.getResponse().getContentAsString()).get("id").asLong());
+        }
+
+        // When
+        mockMvc.perform(patch("/device-service/v1/devices/{id}", ids.get(0))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new DeviceUpdateRequest(null, null, DeviceState.IN_USE))))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/device-service/v1/devices/{id}", ids.get(2)))
+                .andExpect(status().isNoContent());
+
+        // Then
+        mockMvc.perform(get("/device-service/v1/devices/stats"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.byState.AVAILABLE", is(1)))
+                .andExpect(jsonPath("$.byState.IN_USE", is(1)))
+                .andExpect(jsonPath("$.byBrand.Apple", is(2)))
+                .andExpect(jsonPath("$.byBrand.Google").doesNotExist());
+
+        statsTracker.reconcile();
+        mockMvc.perform(get("/device-service/v1/devices/stats"))
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.byBrandAndState.Apple.IN_USE", is(1)));
+    }
 }
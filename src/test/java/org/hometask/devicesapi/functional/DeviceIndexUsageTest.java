@@ -0,0 +1,199 @@
+package org.hometask.devicesapi.functional;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.service.DeviceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Checks with EXPLAIN that the list and search queries are served by the indexes created by the Flyway migrations.
+The statements are the ones Hibernate and the repositories send for a service call, captured from the datasource
+proxy with their parameters and explained as they were executed. The caches are off so every call reaches the database
+*/
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "devices.sql-logging.enabled=true"
+})
+@Testcontainers
+class DeviceIndexUsageTest {
+
+    private static final int ROWS = 20_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("devices_db_test")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<QueryInfo> executed = new CopyOnWriteArrayList<>();
+    private final QueryExecutionListener capture = new QueryExecutionListener() {
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            executed.addAll(queryInfoList);
+        }
+    };
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE device");
+        jdbcTemplate.update("""
+                INSERT INTO device (name, brand, state, creation_time)
+                SELECT 'Device ' || i,
+                       'Brand ' || (i % 500),
+                       CASE WHEN i % 50 = 0 THEN 'INACTIVE' WHEN i % 2 = 0 THEN 'IN_USE' ELSE 'AVAILABLE' END,
+                       now() - make_interval(mins => i)
+                FROM generate_series(1, ?) AS i
+                """, ROWS);
+        jdbcTemplate.execute("ANALYZE device");
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().addListener(capture);
+    }
+
+    @AfterEach
+    void stopCapturing() {
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().getListeners().remove(capture);
+    }
+
+    @Test
+    void findByBrand_ShouldUseBrandIdIndex() {
+        String plan = explainQueryOf(() -> deviceService.sliceDevices(
+                DeviceFilter.builder().brand("Brand 42").build(), 0, 10, null));
+
+        assertThat(plan).contains("idx_device_brand_id").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void findByState_ShouldUseStateIdIndex() {
+        String plan = explainQueryOf(() -> deviceService.sliceDevices(
+                DeviceFilter.builder().state(DeviceState.INACTIVE).build(), 0, 10, null));
+
+        assertThat(plan).contains("idx_device_state_id").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void keysetSeekByBrand_ShouldUseBrandIdIndex() {
+        DeviceFilter filter = DeviceFilter.builder().brand("Brand 42").build();
+        String after = deviceService.scrollDevices(filter, null, 10, null).getNextCursor();
+
+        String plan = explainQueryOf(() -> deviceService.scrollDevices(filter, after, 10, null));
+
+        assertThat(plan).contains("idx_device_brand_id").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void findByBrandAndState_ShouldUseBrandStateIdIndex() {
+        String plan = explainQueryOf(() -> deviceService.sliceDevices(
+                DeviceFilter.builder().brand("Brand 42").state(DeviceState.IN_USE).build(), 0, 10, null));
+
+        assertThat(plan).contains("idx_device_brand_state_id").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void findByNamePrefix_ShouldUseNamePatternIndex() {
+        String plan = explainQueryOf(() -> deviceService.sliceDevices(
+                DeviceFilter.builder().namePrefix("Device 1234").build(), 0, 10, null));
+
+        assertThat(plan).contains("idx_device_name_pattern").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void searchByNameSubstring_ShouldUseNameTrigramIndex() {
+        String plan = explainQueryOf(() -> deviceService.searchDevices("ice 1234", null, 10));
+
+        assertThat(plan).contains("idx_device_name_trgm").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void searchByBrandSubstring_ShouldUseBrandTrigramIndex() {
+        String plan = explainQueryOf(() -> deviceService.searchDevices("nd 499", null, 10));
+
+        assertThat(plan).contains("idx_device_brand_trgm").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void sortByCreationTime_ShouldUseCreationTimeIndex() {
+        String plan = explainQueryOf(() -> deviceService.sliceDevices(new DeviceFilter(), 0, 10, "creationTime,desc"));
+
+        assertThat(plan).contains("idx_device_creation_time").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void sortByName_ShouldUseNameIdIndex() {
+        String plan = explainQueryOf(() -> deviceService.sliceDevices(new DeviceFilter(), 0, 10, "name,desc"));
+
+        assertThat(plan).contains("idx_device_name_id").doesNotContain("Seq Scan");
+    }
+
+    // Explains the device query the call sent, with the parameters it was executed with
+    private String explainQueryOf(Runnable call) {
+        executed.clear();
+        call.run();
+        QueryInfo query = executed.stream()
+                .filter(info -> info.getQuery().toLowerCase(Locale.ROOT).contains("from device"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No device query was executed"));
+        List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                ? List.of()
+                : query.getParametersList().get(0);
+
+        List<String> lines = jdbcTemplate.query("EXPLAIN " + query.getQuery(),
+                statement -> bind(statement, parameters), (resultSet, row) -> resultSet.getString(1));
+        return String.join("\n", lines);
+    }
+
+    private static void bind(PreparedStatement statement, List<ParameterSetOperation> parameters) throws SQLException {
+        for (ParameterSetOperation parameter : parameters) {
+            try {
+                parameter.getMethod().invoke(statement, parameter.getArgs());
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new SQLException("Cannot replay " + parameter.getMethod().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.hometask.devicesapi.functional;
+
+import org.hometask.devicesapi.dto.DeviceCreateCommand;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceUpdateCommand;
+import org.hometask.devicesapi.exception.DeviceInUseException;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.outbox.DeviceOutboxMessage;
+import org.hometask.devicesapi.outbox.DeviceOutboxRelay;
+import org.hometask.devicesapi.outbox.DeviceOutboxSink;
+import org.hometask.devicesapi.service.DeviceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+Checks that device changes and their outbox rows commit together and that the relay drains them against PostgreSQL
+*/
+
+@SpringBootTest(properties = {
+        "devices.outbox.batch-size=2",
+        // Relay runs are triggered by the tests
+        "devices.outbox.poll-interval=PT1H"
+})
+@Testcontainers
+class DeviceOutboxFunctionalTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("devices_db_test")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @TestConfiguration
+    static class InMemorySinkConfig {
+
+        @Bean
+        @Primary
+        InMemorySink inMemorySink() {
+            return new InMemorySink();
+        }
+    }
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceOutboxRelay relay;
+
+    @Autowired
+    private InMemorySink sink;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.execute("TRUNCATE device_outbox");
+        jdbcTemplate.execute("TRUNCATE device");
+        sink.messages.clear();
+        sink.failing = false;
+    }
+
+    @Test
+    void deviceChanges_ShouldBeRelayedInOrderAndRemoved() {
+        // Given
+        DeviceDTO device = deviceService.createDevice(command("iPhone 15"));
+        deviceService.updateDevice(device.getId(), new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null));
+        deviceService.updateDevice(device.getId(), new DeviceUpdateCommand(null, null, DeviceState.AVAILABLE, null));
+        deviceService.deleteDevice(device.getId());
+
+        // When
+        relay.relay();
+
+        // Then
+        assertThat(sink.messages).extracting(DeviceOutboxMessage::eventType)
+                .containsExactly("CREATED", "UPDATED", "UPDATED", "DELETED");
+        assertThat(sink.messages).allMatch(message -> message.deviceId() == device.getId());
+        assertThat(sink.messages.get(0).payload()).contains("\"creationTime\"");
+        assertThat(outboxRows()).isZero();
+    }
+
+    @Test
+    void rejectedChange_ShouldLeaveNoOutboxRow() {
+        // Given
+        DeviceDTO device = deviceService.createDevice(command("iPhone 15"));
+        deviceService.updateDevice(device.getId(), new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null));
+
+        // When
+        assertThatThrownBy(() -> deviceService.deleteDevice(device.getId())).isInstanceOf(DeviceInUseException.class);
+
+        // Then
+        assertThat(outboxRows()).isEqualTo(2);
+    }
+
+    @Test
+    void failingSink_ShouldKeepRowsForTheNextPoll() {
+        // Given
+        deviceService.createDevices(List.of(command("iPhone 15"), command("iPhone 14"), command("iPhone 13")));
+        sink.failing = true;
+
+        // When
+        relay.relay();
+
+        // Then
+        assertThat(outboxRows()).isEqualTo(3);
+
+        sink.failing = false;
+        relay.relay();
+        assertThat(sink.messages).hasSize(3);
+        assertThat(outboxRows()).isZero();
+    }
+
+    @Test
+    void relay_ShouldSkipRowsLockedByAnotherRelay() throws Exception {
+        // Given
+        deviceService.createDevices(List.of(command("iPhone 15"), command("iPhone 14"), command("iPhone 13"), command("iPhone 12")));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> otherRelay = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList("SELECT id FROM device_outbox ORDER BY id LIMIT 2 FOR UPDATE");
+                    locked.countDown();
+                    await(release);
+                }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        relay.relay();
+        release.countDown();
+        otherRelay.get(10, TimeUnit.SECONDS);
+
+        // Then - the two rows held by the other transaction were neither published nor deleted
+        assertThat(sink.messages).hasSize(2);
+        assertThat(outboxRows()).isEqualTo(2);
+        List<Long> remaining = jdbcTemplate.queryForList("SELECT id FROM device_outbox ORDER BY id", Long.class);
+        assertThat(sink.messages).extracting(DeviceOutboxMessage::id).allMatch(id -> id > remaining.get(1));
+    }
+
+    private long outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM device_outbox", Long.class);
+    }
+
+    private static DeviceCreateCommand command(String name) {
+        return new DeviceCreateCommand(name, "Apple", DeviceState.AVAILABLE, OffsetDateTime.now());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class InMemorySink implements DeviceOutboxSink {
+
+        private final List<DeviceOutboxMessage> messages = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void publish(List<DeviceOutboxMessage> messages) {
+            if (failing) {
+                throw new IllegalStateException("Sink unavailable");
+            }
+            this.messages.addAll(messages);
+        }
+    }
+}
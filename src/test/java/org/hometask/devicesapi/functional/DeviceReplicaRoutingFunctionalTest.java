@@ -0,0 +1,158 @@
+package org.hometask.devicesapi.functional;
+
+import org.flywaydb.core.Flyway;
+import org.hometask.devicesapi.dto.DeviceCreateCommand;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.dto.DeviceStats;
+import org.hometask.devicesapi.dto.DeviceUpdateCommand;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.repository.DeviceRepository;
+import org.hometask.devicesapi.service.DeviceService;
+import org.hometask.devicesapi.stats.DeviceStatsTracker;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/*
+Routes against two independent PostgreSQL containers standing in for a primary and its replica. They hold different
+rows, so the data returned shows where a statement ran. An unreachable replica url is configured first and must be
+skipped
+*/
+
+@SpringBootTest(properties = {
+        "devices.datasource.replicas.connection-timeout=500ms",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@Testcontainers
+class DeviceReplicaRoutingFunctionalTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("devices_db_test")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("devices_db_test")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("devices.datasource.replicas.urls", () -> "jdbc:postgresql://localhost:1/devices_db_test," + replica.getJdbcUrl());
+    }
+
+    // Flyway only migrates the primary; the stand-in replica gets the same schema here
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceStatsTracker deviceStatsTracker;
+
+    private final JdbcTemplate primaryJdbc = jdbc(primary);
+    private final JdbcTemplate replicaJdbc = jdbc(replica);
+
+    @BeforeEach
+    void reset() {
+        for (JdbcTemplate jdbc : new JdbcTemplate[]{primaryJdbc, replicaJdbc}) {
+            jdbc.execute("TRUNCATE device_outbox");
+            jdbc.execute("TRUNCATE device");
+        }
+        replicaJdbc.update("INSERT INTO device (id, name, brand, state, creation_time, version) "
+                + "VALUES (900, 'Replica Phone', 'Apple', 'AVAILABLE', now(), 0)");
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldBeServedByTheReplica() {
+        // Given
+        deviceService.createDevice(new DeviceCreateCommand("Primary Phone", "Apple", DeviceState.AVAILABLE, OffsetDateTime.now()));
+
+        // When
+        var devices = deviceService.getDevices(new DeviceFilter(), 0, 10, null);
+
+        // Then
+        assertThat(devices.getContent()).extracting(DeviceDTO::getName).containsExactly("Replica Phone");
+        assertThat(deviceRepository.findById(900L)).map(DeviceEntity::getName).contains("Replica Phone");
+    }
+
+    @Test
+    void writes_ShouldStayOnThePrimary() {
+        // Given
+        DeviceDTO device = deviceService.createDevice(
+                new DeviceCreateCommand("Primary Phone", "Apple", DeviceState.AVAILABLE, OffsetDateTime.now()));
+
+        // When
+        deviceService.updateDevice(device.getId(), new DeviceUpdateCommand("Primary Phone 2", null, null, null));
+
+        // Then
+        assertThat(primaryJdbc.queryForList("SELECT name FROM device", String.class)).containsExactly("Primary Phone 2");
+        assertThat(primaryJdbc.queryForObject("SELECT count(*) FROM device_outbox", Long.class)).isEqualTo(2);
+        assertThat(replicaJdbc.queryForList("SELECT name FROM device", String.class)).containsExactly("Replica Phone");
+    }
+
+    @Test
+    void getDeviceById_WhenTheReplicaLags_ShouldCacheTheDeviceReadFromThePrimary() {
+        // Given
+        DeviceDTO device = deviceService.createDevice(
+                new DeviceCreateCommand("Primary Phone", "Apple", DeviceState.AVAILABLE, OffsetDateTime.now()));
+
+        // When
+        DeviceDTO found = deviceService.getDeviceById(device.getId());
+
+        // Then
+        assertThat(found.getName()).isEqualTo("Primary Phone");
+        assertThat(deviceService.getDeviceById(device.getId())).isEqualTo(found);
+    }
+
+    @Test
+    void statsReconciliation_WhenTheReplicaLags_ShouldCountOnThePrimary() {
+        // Given
+        deviceService.createDevice(new DeviceCreateCommand("Galaxy S24", "Samsung", DeviceState.IN_USE, OffsetDateTime.now()));
+
+        // When
+        deviceStatsTracker.reconcile();
+
+        // Then
+        DeviceStats stats = deviceStatsTracker.getStats();
+        assertThat(stats.getByBrand()).containsOnly(entry("Samsung", 1L));
+        assertThat(stats.getReconciledAt()).isNotNull();
+    }
+
+    private static JdbcTemplate jdbc(PostgreSQLContainer<?> container) {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                container.getJdbcUrl(), container.getUsername(), container.getPassword()));
+    }
+}
@@ -0,0 +1,152 @@
+package org.hometask.devicesapi.functional;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.hometask.devicesapi.dto.DeviceCreateCommand;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.dto.DeviceUpdateCommand;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.repository.DeviceRepository;
+import org.hometask.devicesapi.service.DeviceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Checks that device entities and list pages are served from the Hibernate second-level cache and dropped from it
+on update and delete, against PostgreSQL
+*/
+
+@SpringBootTest
+@Testcontainers
+class DeviceSecondLevelCacheFunctionalTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("devices_db_test")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.execute("TRUNCATE device_outbox");
+        jdbcTemplate.execute("TRUNCATE device");
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findById_ShouldBeServedFromTheEntityRegion() {
+        // Given
+        DeviceDTO device = deviceService.createDevice(command("iPhone 15"));
+
+        // When
+        load(device.getId());
+        load(device.getId());
+
+        // Then
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+        assertThat(statistics.getEntityStatistics("org.hometask.devicesapi.model.DeviceEntity").getLoadCount()).isZero();
+    }
+
+    @Test
+    void listPage_ShouldBeCachedUntilADeviceChanges() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().brand("Apple").build();
+        DeviceDTO device = deviceService.createDevice(command("iPhone 15"));
+        deviceService.getDevices(filter, 0, 10, null);
+
+        // When
+        deviceService.getDevices(filter, 0, 10, null);
+        deviceService.updateDevice(device.getId(), new DeviceUpdateCommand("iPhone 15 Pro", null, null, null));
+        var afterUpdate = deviceService.getDevices(filter, 0, 10, null);
+
+        // Then
+        assertThat(statistics.getQueryCacheHitCount()).isPositive();
+        assertThat(afterUpdate.getContent()).extracting(DeviceDTO::getName).containsExactly("iPhone 15 Pro");
+    }
+
+    @Test
+    void deleteDevice_ShouldEvictTheEntityAndListPages() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().brand("Apple").build();
+        DeviceDTO device = deviceService.createDevice(command("iPhone 15"));
+        load(device.getId());
+        deviceService.getDevices(filter, 0, 10, null);
+
+        // When
+        deviceService.deleteDevice(device.getId());
+
+        // Then
+        assertThat(load(device.getId())).isFalse();
+        assertThat(deviceService.getDevices(filter, 0, 10, null).getTotalElements()).isZero();
+    }
+
+    @Test
+    void exportDevices_ShouldNotPutDevicesInTheEntityRegion() {
+        // Given
+        for (int i = 0; i < 20; i++) {
+            deviceService.createDevice(command("iPhone " + i));
+        }
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics.clear();
+        AtomicInteger exported = new AtomicInteger();
+
+        // When
+        deviceService.exportDevices(device -> exported.incrementAndGet());
+
+        // Then
+        assertThat(exported).hasValue(20);
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+    }
+
+    private boolean load(Long id) {
+        return new TransactionTemplate(transactionManager).execute(status -> deviceRepository.findById(id).isPresent());
+    }
+
+    private static DeviceCreateCommand command(String name) {
+        return new DeviceCreateCommand(name, "Apple", DeviceState.AVAILABLE, OffsetDateTime.now());
+    }
+}
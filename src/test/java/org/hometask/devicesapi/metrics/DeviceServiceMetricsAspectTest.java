@@ -0,0 +1,73 @@
+package org.hometask.devicesapi.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.exception.DeviceNotFoundException;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.service.DeviceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.OffsetDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceServiceMetricsAspectTest {
+
+    @Mock
+    private DeviceService target;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DeviceService deviceService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(DeviceService.class);
+        factory.addAspect(new DeviceServiceMetricsAspect(meterRegistry));
+        deviceService = factory.getProxy();
+    }
+
+    @Test
+    void successfulCall_ShouldBeTimedWithSuccessOutcome() {
+        // Given
+        when(target.getDeviceById(1L)).thenReturn(
+                new DeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE, OffsetDateTime.now(), 0L));
+
+        // When
+        deviceService.getDeviceById(1L);
+
+        // Then
+        Timer timer = meterRegistry.find(DeviceServiceMetricsAspect.METRIC_NAME)
+                .tags("operation", "getDeviceById", "outcome", "success", "exception", "none")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedCall_ShouldBeTimedWithFailureOutcomeAndRethrow() {
+        // Given
+        when(target.getDeviceById(999L)).thenThrow(new DeviceNotFoundException(999L));
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.getDeviceById(999L))
+                .isInstanceOf(DeviceNotFoundException.class);
+
+        Timer timer = meterRegistry.find(DeviceServiceMetricsAspect.METRIC_NAME)
+                .tags("operation", "getDeviceById", "outcome", "failure", "exception", "DeviceNotFoundException")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,104 @@
+package org.hometask.devicesapi.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.hometask.devicesapi.dto.DeviceChangeEvent;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.model.DeviceState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceOutboxWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onDeviceChange_ShouldInsertAllRowsOfTransactionAsOneBatchBeforeCommit() {
+        // Given
+        DeviceOutboxWriter writer = new DeviceOutboxWriter(jdbcTemplate, objectMapper);
+        beginTransaction();
+
+        // When
+        writer.onDeviceChange(event(1L, DeviceChangeEvent.Type.CREATED));
+        writer.onDeviceChange(event(2L, DeviceChangeEvent.Type.CREATED));
+        verifyNoInteractions(jdbcTemplate);
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(DeviceOutboxWriter.INSERT_SQL), rowsCaptor.capture());
+        List<Object[]> rows = rowsCaptor.getValue();
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0)[0]).isEqualTo(1L);
+        assertThat(rows.get(0)[1]).isEqualTo("CREATED");
+        assertThat((String) rows.get(0)[2]).contains("\"deviceId\":1", "\"brand\":\"Apple\"");
+        assertThat(rows.get(1)[0]).isEqualTo(2L);
+    }
+
+    @Test
+    void onDeviceChange_AfterRollback_ShouldInsertNothingAndReleaseBuffer() {
+        // Given
+        DeviceOutboxWriter writer = new DeviceOutboxWriter(jdbcTemplate, objectMapper);
+        beginTransaction();
+        writer.onDeviceChange(event(1L, DeviceChangeEvent.Type.DELETED));
+
+        // When
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertThat(TransactionSynchronizationManager.hasResource(writer)).isFalse();
+    }
+
+    @Test
+    void onDeviceChange_OutsideTransaction_ShouldThrowException() {
+        // Given
+        DeviceOutboxWriter writer = new DeviceOutboxWriter(jdbcTemplate, objectMapper);
+
+        // When & Then
+        assertThatThrownBy(() -> writer.onDeviceChange(event(1L, DeviceChangeEvent.Type.CREATED)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    private static DeviceChangeEvent event(Long id, DeviceChangeEvent.Type type) {
+        DeviceDTO device = type == DeviceChangeEvent.Type.DELETED ? null
+                : DeviceDTO.builder().id(id).name("iPhone").brand("Apple").state(DeviceState.AVAILABLE).version(0L).build();
+        return DeviceChangeEvent.builder().type(type).deviceId(id).device(device).build();
+    }
+}
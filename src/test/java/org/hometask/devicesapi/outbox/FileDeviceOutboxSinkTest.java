@@ -0,0 +1,40 @@
+package org.hometask.devicesapi.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileDeviceOutboxSinkTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void publish_ShouldAppendOneLinePerMessageAcrossBatches() throws Exception {
+        // Given
+        Path file = tempDir.resolve("device-events.ndjson");
+        FileDeviceOutboxSink sink = new FileDeviceOutboxSink(file);
+
+        // When
+        sink.publish(List.of(message(1L, "{\"type\":\"CREATED\",\"deviceId\":10}")));
+        sink.publish(List.of(
+                message(2L, "{\"type\":\"UPDATED\",\"deviceId\":10}"),
+                message(3L, "{\"type\":\"DELETED\",\"deviceId\":10}")));
+
+        // Then
+        assertThat(Files.readAllLines(file)).containsExactly(
+                "{\"id\":1,\"event\":{\"type\":\"CREATED\",\"deviceId\":10}}",
+                "{\"id\":2,\"event\":{\"type\":\"UPDATED\",\"deviceId\":10}}",
+                "{\"id\":3,\"event\":{\"type\":\"DELETED\",\"deviceId\":10}}");
+    }
+
+    private static DeviceOutboxMessage message(long id, String payload) {
+        return new DeviceOutboxMessage(id, 10L, "CREATED", payload, OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,94 @@
+package org.hometask.devicesapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_ShouldRejectRequestsBeyondTheLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, WINDOW, 0);
+
+        // When
+        boolean first = limit.tryAcquire();
+        boolean second = limit.tryAcquire();
+        boolean third = limit.tryAcquire();
+        limit.release();
+        boolean afterRelease = limit.tryAcquire();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(afterRelease).isTrue();
+        assertThat(limit.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void release_WhenLatencyHoldsUnderLoad_ShouldRaiseTheLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 10, 100, WINDOW, 0);
+
+        // When
+        long now = runWindows(limit, 0, 5, 20, 10 * MILLIS);
+
+        // Then
+        assertThat(now).isPositive();
+        assertThat(limit.limit()).isGreaterThan(20);
+    }
+
+    @Test
+    void release_WhenLatencyRises_ShouldLowerTheLimitButNotBelowTheMinimum() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 40, 100, WINDOW, 0);
+        long now = runWindows(limit, 0, 5, 50, 10 * MILLIS);
+        int before = limit.limit();
+
+        // When
+        runWindows(limit, now, 10, 50, 100 * MILLIS);
+
+        // Then
+        assertThat(before).isGreaterThan(50);
+        assertThat(limit.limit()).isEqualTo(40);
+    }
+
+    @Test
+    void release_WhenMostlyIdle_ShouldKeepTheLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 10, 100, WINDOW, 0);
+
+        // When
+        runWindows(limit, 0, 10, 2, 10 * MILLIS);
+
+        // Then
+        assertThat(limit.limit()).isEqualTo(50);
+    }
+
+    /*
+    Fills each window with up to `concurrency` requests in flight at once, all taking `latency`
+    */
+    private static long runWindows(AdaptiveConcurrencyLimit limit, long now, int windows, int concurrency, long latency) {
+        for (int window = 0; window < windows; window++) {
+            for (int round = 0; round < 5; round++) {
+                int acquired = 0;
+                for (int i = 0; i < concurrency; i++) {
+                    if (limit.tryAcquire()) {
+                        acquired++;
+                    }
+                }
+                now += WINDOW / 5;
+                for (int i = 0; i < acquired; i++) {
+                    limit.release(latency, now);
+                }
+            }
+        }
+        return now;
+    }
+}
@@ -0,0 +1,134 @@
+package org.hometask.devicesapi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.hometask.devicesapi.config.DeviceConcurrencyLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceConcurrencyLimitFilterTest {
+
+    private static final String DEVICES = "/device-service/v1/devices";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimit limit;
+    private DeviceConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limit = new AdaptiveConcurrencyLimit(1, 1, 10, TimeUnit.SECONDS.toNanos(1), System.nanoTime());
+        filter = new DeviceConcurrencyLimitFilter(
+                new DeviceConcurrencyLimitProperties(true, 1, 1, 10, Duration.ofSeconds(1), Duration.ofSeconds(2)),
+                objectMapper, meterRegistry, limit);
+    }
+
+    @Test
+    void doFilter_WhenTheLimitIsReached_ShouldShedWith503AndRetryAfter() throws Exception {
+        // Given
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        MockFilterChain holdingChain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                try {
+                    filter.doFilter(new MockHttpServletRequest("GET", DEVICES + "/7"), shed, new MockFilterChain());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        // When
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", DEVICES), first, holdingChain);
+
+        // Then
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(shed.getStatus()).isEqualTo(503);
+        assertThat(shed.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(shed.getContentAsString()).contains("\"error\":\"Service Unavailable\"");
+        assertThat(meterRegistry.get("device.requests.rejected")
+                .tag("reason", "concurrency-limit").tag("endpoint", "read").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_ShouldReleaseTheSlotWhenTheRequestCompletes() throws Exception {
+        // When
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", DEVICES), first, new MockFilterChain());
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", DEVICES), second, new MockFilterChain());
+
+        // Then
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(limit.inFlight()).isZero();
+        assertThat(meterRegistry.get("device.concurrency.limit").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_WhenTheRequestGoesAsync_ShouldKeepTheSlotUntilItCompletes() throws Exception {
+        // Given
+        MockHttpServletRequest export = asyncRequest(DEVICES + "/export");
+
+        // When
+        filter.doFilter(export, new MockHttpServletResponse(), startingAsync());
+        long inFlightWhileStreaming = limit.inFlight();
+        MockAsyncContext asyncContext = (MockAsyncContext) export.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        asyncContext.complete();
+
+        // Then
+        assertThat(inFlightWhileStreaming).isEqualTo(1);
+        assertThat(limit.inFlight()).isZero();
+    }
+
+    @Test
+    void doFilter_WhenAnEventStreamGoesAsync_ShouldReleaseTheSlotRightAway() throws Exception {
+        // Given
+        MockHttpServletRequest stream = asyncRequest(DEVICES + "/stream");
+        stream.setAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, Set.of(MediaType.TEXT_EVENT_STREAM));
+
+        // When
+        filter.doFilter(stream, new MockHttpServletResponse(), startingAsync());
+
+        // Then
+        assertThat(stream.isAsyncStarted()).isTrue();
+        assertThat(limit.inFlight()).isZero();
+    }
+
+    private static MockHttpServletRequest asyncRequest(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static MockFilterChain startingAsync() {
+        return new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                request.startAsync();
+            }
+        };
+    }
+}
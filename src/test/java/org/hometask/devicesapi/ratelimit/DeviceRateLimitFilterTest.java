@@ -0,0 +1,132 @@
+package org.hometask.devicesapi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hometask.devicesapi.config.DeviceRateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceRateLimitFilterTest {
+
+    private static final String DEVICES = "/device-service/v1/devices";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private SimpleMeterRegistry meterRegistry;
+    private DeviceRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = filter("X-Client-Id");
+    }
+
+    @Test
+    void doFilter_WhenAClientExceedsItsBucket_ShouldAnswer429WithRetryAfter() throws Exception {
+        // Given
+        perform(post("client-a"));
+        perform(post("client-a"));
+
+        // When
+        MockHttpServletResponse response = perform(post("client-a"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(response.getHeader("Retry-After"))).isBetween(1L, 100L);
+        assertThat(response.getContentAsString())
+                .contains("\"status\":429")
+                .contains("\"error\":\"Too Many Requests\"")
+                .contains("Rate limit exceeded for write requests")
+                .contains("\"path\":\"" + DEVICES + "\"");
+        assertThat(meterRegistry.get("device.requests.rejected")
+                .tag("reason", "rate-limit").tag("endpoint", "write").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_ShouldKeepSeparateBucketsPerClientAndEndpointClass() throws Exception {
+        // Given
+        perform(post("client-a"));
+        perform(post("client-a"));
+
+        // When
+        MockHttpServletResponse otherClient = perform(post("client-b"));
+        MockHttpServletResponse pointRead = perform(get(DEVICES + "/42", "client-a"));
+        MockHttpServletResponse list = perform(get(DEVICES, "client-a"));
+
+        // Then
+        assertThat(otherClient.getStatus()).isEqualTo(200);
+        assertThat(pointRead.getStatus()).isEqualTo(200);
+        assertThat(list.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_WithoutClientHeader_ShouldKeyOnTheRemoteAddress() throws Exception {
+        // Given
+        MockHttpServletRequest first = get(DEVICES, null);
+        first.setRemoteAddr("10.0.0.1");
+        perform(first);
+        perform(first);
+        MockHttpServletRequest sameAddress = get(DEVICES, null);
+        sameAddress.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest otherAddress = get(DEVICES, null);
+        otherAddress.setRemoteAddr("10.0.0.2");
+
+        // When
+        MockHttpServletResponse limited = perform(sameAddress);
+        MockHttpServletResponse allowed = perform(otherAddress);
+
+        // Then
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(allowed.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_WithoutConfiguredClientHeader_ShouldIgnoreTheHeaderAndKeyOnTheRemoteAddress() throws Exception {
+        // Given
+        filter = filter("");
+        MockHttpServletRequest first = post("client-a");
+        first.setRemoteAddr("10.0.0.1");
+        perform(first);
+        perform(first);
+        MockHttpServletRequest rotated = post("client-b");
+        rotated.setRemoteAddr("10.0.0.1");
+
+        // When
+        MockHttpServletResponse response = perform(rotated);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+    }
+
+    private DeviceRateLimitFilter filter(String clientHeader) {
+        return new DeviceRateLimitFilter(new DeviceRateLimitProperties(true, clientHeader, 1000,
+                new DeviceRateLimitProperties.Limit(2, 0.01),
+                new DeviceRateLimitProperties.Limit(2, 0.01),
+                new DeviceRateLimitProperties.Limit(2, 0.01)), objectMapper, meterRegistry);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest post(String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", DEVICES);
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private static MockHttpServletRequest get(String path, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (client != null) {
+            request.addHeader("X-Client-Id", client);
+        }
+        return request;
+    }
+}
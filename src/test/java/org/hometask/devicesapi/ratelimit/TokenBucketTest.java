@@ -0,0 +1,95 @@
+package org.hometask.devicesapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_ShouldAllowABurstOfCapacityThenAskToWait() {
+        // Given
+        TokenBucket bucket = new TokenBucket(3, 10, 0);
+
+        // When
+        long first = bucket.tryAcquire(0);
+        long second = bucket.tryAcquire(0);
+        long third = bucket.tryAcquire(0);
+        long fourth = bucket.tryAcquire(0);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isZero();
+        assertThat(fourth).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtTheConfiguredRate() {
+        // Given
+        TokenBucket bucket = new TokenBucket(1, 10, 0);
+        bucket.tryAcquire(0);
+
+        // When
+        long tooEarly = bucket.tryAcquire(SECOND / 20);
+        long refilled = bucket.tryAcquire(SECOND / 10);
+
+        // Then
+        assertThat(tooEarly).isEqualTo(SECOND / 20);
+        assertThat(refilled).isZero();
+    }
+
+    @Test
+    void tryAcquire_ShouldNotSaveUpMoreThanCapacityWhileIdle() {
+        // Given
+        TokenBucket bucket = new TokenBucket(2, 10, 0);
+
+        // When
+        long idle = 60 * SECOND;
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (bucket.tryAcquire(idle) == 0) {
+                allowed++;
+            }
+        }
+
+        // Then
+        assertThat(allowed).isEqualTo(2);
+    }
+
+    @Test
+    void tryAcquire_ShouldHandOutExactlyCapacityTokensToConcurrentCallers() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(100, 1, 0);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(allowed).hasValue(100);
+    }
+}
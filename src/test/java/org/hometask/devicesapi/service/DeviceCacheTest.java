@@ -0,0 +1,161 @@
+package org.hometask.devicesapi.service;
+
+import jakarta.persistence.EntityManager;
+import org.hometask.devicesapi.config.CacheConfig;
+import org.hometask.devicesapi.config.DeviceBatchProperties;
+import org.hometask.devicesapi.config.DeviceScrollProperties;
+import org.hometask.devicesapi.config.DeviceSearchProperties;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceUpdateCommand;
+import org.hometask.devicesapi.mapper.DeviceMapper;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.repository.DeviceRepository;
+import org.hometask.devicesapi.validation.DeviceValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(classes = {CacheConfig.class, DeviceServiceImpl.class})
+@TestPropertySource(properties = {
+        "spring.cache.cache-names=devices",
+        "spring.cache.caffeine.spec=maximumSize=100,recordStats"
+})
+class DeviceCacheTest {
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private DeviceRepository deviceRepository;
+
+    @MockBean
+    private DeviceMapper deviceMapper;
+
+    @MockBean
+    private DeviceValidator deviceValidator;
+
+    @MockBean
+    private DeviceCursorCodec deviceCursorCodec;
+
+    @MockBean
+    private DeviceBatchProperties batchProperties;
+
+    @MockBean
+    private DeviceSearchProperties searchProperties;
+
+    @MockBean
+    private DeviceScrollProperties scrollProperties;
+
+    @MockBean
+    private EntityManager entityManager;
+
+    private final DeviceEntity entity = DeviceEntity.builder()
+            .id(1L).name("iPhone 15").brand("Apple").state(DeviceState.AVAILABLE)
+            .creationTime(OffsetDateTime.now()).build();
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.DEVICES_CACHE).clear();
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(entity));
+        when(deviceRepository.saveAndFlush(any(DeviceEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(deviceMapper.toDTO(any(DeviceEntity.class))).thenAnswer(invocation -> {
+            DeviceEntity device = invocation.getArgument(0);
+            return new DeviceDTO(device.getId(), device.getName(), device.getBrand(), device.getState(),
+                    device.getCreationTime(), device.getVersion());
+        });
+    }
+
+    @Test
+    void getDeviceById_CalledTwice_ShouldHitRepositoryOnce() {
+        // When
+        DeviceDTO first = deviceService.getDeviceById(1L);
+        DeviceDTO second = deviceService.getDeviceById(1L);
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        verify(deviceRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void updateDevice_ShouldRefreshCachedEntry() {
+        // Given
+        deviceService.getDeviceById(1L);
+
+        // When
+        deviceService.updateDevice(1L, new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null));
+        DeviceDTO cached = deviceService.getDeviceById(1L);
+
+        // Then
+        assertThat(cached.getState()).isEqualTo(DeviceState.IN_USE);
+        verify(deviceRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getDeviceById_MissRacingAnUpdate_ShouldNotOverwriteTheUpdatedEntry() throws Exception {
+        // Given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DeviceEntity stale = DeviceEntity.builder()
+                .id(1L).name("iPhone 15").brand("Apple").state(DeviceState.AVAILABLE)
+                .creationTime(entity.getCreationTime()).build();
+        when(deviceRepository.findById(1L))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Optional.of(stale);
+                })
+                .thenReturn(Optional.of(entity));
+
+        // When
+        CompletableFuture<DeviceDTO> read = CompletableFuture.supplyAsync(() -> deviceService.getDeviceById(1L));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<DeviceDTO> update = CompletableFuture.supplyAsync(() -> deviceService.updateDevice(1L,
+                new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null)));
+        try {
+            update.get(200, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The update waits for the read in progress before caching its result
+        }
+        release.countDown();
+        read.get(5, TimeUnit.SECONDS);
+        update.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(deviceService.getDeviceById(1L).getState()).isEqualTo(DeviceState.IN_USE);
+    }
+
+    @Test
+    void deleteDevice_ShouldEvictCachedEntry() {
+        // Given
+        deviceService.getDeviceById(1L);
+
+        when(deviceRepository.deleteByIdAndStateNot(1L, DeviceState.IN_USE)).thenReturn(Optional.of(DeviceEntity.builder()
+                .id(1L).name("iPhone 15").brand("Apple").state(DeviceState.AVAILABLE).version(0L).build()));
+
+        // When
+        deviceService.deleteDevice(1L);
+        deviceService.getDeviceById(1L);
+
+        // Then
+        verify(deviceRepository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,76 @@
+package org.hometask.devicesapi.service;
+
+import org.hometask.devicesapi.exception.InvalidCursorException;
+import org.hometask.devicesapi.model.DeviceState;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceCursorCodecTest {
+
+    private final DeviceCursorCodec codec = new DeviceCursorCodec();
+
+    @Test
+    void decode_NullOrBlankToken_ShouldReturnInitialPosition() {
+        // When & Then
+        assertThat(codec.decode(null, Sort.by("id")).isInitial()).isTrue();
+        assertThat(codec.decode("", Sort.by("id")).isInitial()).isTrue();
+    }
+
+    @Test
+    void encodeDecode_ShouldRoundTripTypedKeys() {
+        // Given
+        Sort sort = Sort.by(Sort.Direction.DESC, "creationTime");
+        OffsetDateTime creationTime = OffsetDateTime.parse("2024-12-05T10:30:00.123456Z");
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("creationTime", creationTime);
+        keys.put("state", DeviceState.IN_USE);
+        keys.put("id", 42L);
+
+        // When
+        String token = codec.encode(ScrollPosition.forward(keys), sort);
+        KeysetScrollPosition decoded = codec.decode(token, sort);
+
+        // Then
+        assertThat(token).doesNotContain("=", "+", "/");
+        assertThat(decoded.getKeys())
+                .containsEntry("creationTime", creationTime)
+                .containsEntry("state", DeviceState.IN_USE)
+                .containsEntry("id", 42L);
+    }
+
+    @Test
+    void decode_TokenIssuedForDifferentSort_ShouldThrowException() {
+        // Given
+        String token = codec.encode(ScrollPosition.forward(Map.of("name", "iPhone", "id", 1L)), Sort.by("name"));
+
+        // When & Then
+        assertThatThrownBy(() -> codec.decode(token, Sort.by(Sort.Direction.DESC, "name")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void decode_MalformedToken_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> codec.decode("not a cursor!", Sort.by("id")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void decode_UnknownKey_ShouldThrowException() {
+        // Given
+        String token = codec.encode(ScrollPosition.forward(Map.of("password", "x")), Sort.by("id"));
+
+        // When & Then
+        assertThatThrownBy(() -> codec.decode(token, Sort.by("id")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
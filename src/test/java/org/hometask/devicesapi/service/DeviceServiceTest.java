@@ -1,10 +1,26 @@
 package org.hometask.devicesapi.service;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hometask.devicesapi.config.DeviceBatchProperties;
+import org.hometask.devicesapi.config.DeviceScrollProperties;
+import org.hometask.devicesapi.config.DeviceSearchProperties;
 import org.hometask.devicesapi.dto.DeviceCreateCommand;
+import org.hometask.devicesapi.dto.DeviceChangeEvent;
 import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceFilter;
+import org.hometask.devicesapi.dto.DeviceSearchHit;
+import org.hometask.devicesapi.dto.DeviceSearchResult;
+import org.hometask.devicesapi.dto.DeviceStateTransitionCommand;
+import org.hometask.devicesapi.dto.DeviceStateTransitionResponse;
+import org.hometask.devicesapi.dto.DeviceStateTransitionResult;
 import org.hometask.devicesapi.dto.DeviceUpdateCommand;
+import org.hometask.devicesapi.dto.DeviceVersion;
+import org.hometask.devicesapi.exception.BatchLimitExceededException;
 import org.hometask.devicesapi.exception.DeviceInUseException;
 import org.hometask.devicesapi.exception.DeviceNotFoundException;
+import org.hometask.devicesapi.exception.DeviceVersionMismatchException;
 import org.hometask.devicesapi.mapper.DeviceMapper;
 import org.hometask.devicesapi.model.DeviceEntity;
 import org.hometask.devicesapi.model.DeviceState;
@@ -13,23 +29,49 @@ import org.hometask.devicesapi.validation.DeviceValidator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hometask.devicesapi.dto.CursorPage;
+import org.hometask.devicesapi.exception.InvalidCursorException;
+import org.hometask.devicesapi.exception.InvalidPageSizeException;
+import org.hometask.devicesapi.exception.InvalidSearchQueryException;
+import org.hometask.devicesapi.exception.InvalidSortException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -45,6 +87,30 @@ class DeviceServiceTest {
     @Mock
     private DeviceValidator deviceValidator;
 
+    @Spy
+    private DeviceCursorCodec deviceCursorCodec = new DeviceCursorCodec();
+
+    @Spy
+    private DeviceBatchProperties batchProperties = new DeviceBatchProperties(100, 2, 2);
+
+    @Spy
+    private DeviceSearchProperties searchProperties = new DeviceSearchProperties(3, 2, 100);
+
+    @Spy
+    private DeviceScrollProperties scrollProperties = new DeviceScrollProperties(10);
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache devicesCache;
+
     @InjectMocks
     private DeviceServiceImpl deviceService;
 
@@ -55,19 +121,41 @@ class DeviceServiceTest {
                 .brand(brand)
                 .state(state)
                 .creationTime(OffsetDateTime.now())
+                .version(0L)
                 .build();
     }
 
     private DeviceDTO createDeviceDTO(Long id, String name, String brand, DeviceState state) {
-        return new DeviceDTO(id, name, brand, state, OffsetDateTime.now());
+        return new DeviceDTO(id, name, brand, state, OffsetDateTime.now(), 0L);
+    }
+
+    private DeviceSearchHit searchHit(Long id, String name, float rank) {
+        return new DeviceSearchHit(createDeviceDTO(id, name, "Apple", DeviceState.AVAILABLE), rank);
+    }
+
+    private void stubMapperToDTO() {
+        when(deviceMapper.toDTO(any(DeviceEntity.class))).thenAnswer(invocation -> {
+            DeviceEntity entity = invocation.getArgument(0);
+            return new DeviceDTO(entity.getId(), entity.getName(), entity.getBrand(), entity.getState(),
+                    entity.getCreationTime(), entity.getVersion());
+        });
     }
 
     private DeviceCreateCommand createDeviceCreateCommand(String name, String brand, DeviceState state) {
         return new DeviceCreateCommand(name, brand, state, OffsetDateTime.now());
     }
 
+    @SuppressWarnings("unchecked")
+    private FetchableFluentQuery<DeviceEntity> stubScroll(Window<DeviceEntity> window) {
+        FetchableFluentQuery<DeviceEntity> query = mock(FetchableFluentQuery.class, RETURNS_SELF);
+        when(query.scroll(any(ScrollPosition.class))).thenReturn(window);
+        when(deviceRepository.findBy(any(Specification.class), any())).thenAnswer(invocation ->
+                invocation.<Function<FetchableFluentQuery<DeviceEntity>, Object>>getArgument(1).apply(query));
+        return query;
+    }
+
     private DeviceUpdateCommand createDeviceUpdateCommand(String name, String brand, DeviceState state) {
-        return new DeviceUpdateCommand(name, brand, state);
+        return new DeviceUpdateCommand(name, brand, state, null);
     }
 
     @Test
@@ -79,7 +167,7 @@ class DeviceServiceTest {
         DeviceDTO expectedDTO = createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE);
 
         when(deviceMapper.toEntity(command)).thenReturn(entityToSave);
-        when(deviceRepository.save(entityToSave)).thenReturn(savedEntity);
+        when(deviceRepository.saveAndFlush(entityToSave)).thenReturn(savedEntity);
         when(deviceMapper.toDTO(savedEntity)).thenReturn(expectedDTO);
 
         // When
@@ -93,10 +181,33 @@ class DeviceServiceTest {
         assertThat(result.getState()).isEqualTo(DeviceState.AVAILABLE);
 
         verify(deviceMapper, times(1)).toEntity(command);
-        verify(deviceRepository, times(1)).save(entityToSave);
+        verify(deviceRepository, times(1)).saveAndFlush(entityToSave);
         verify(deviceMapper, times(1)).toDTO(savedEntity);
     }
 
+    @Test
+    void createDevice_ShouldPublishCreatedEvent() {
+        // Given
+        DeviceCreateCommand command = createDeviceCreateCommand("iPhone 15", "Apple", DeviceState.AVAILABLE);
+        DeviceEntity entityToSave = createDeviceEntity(null, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        DeviceEntity savedEntity = createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        DeviceDTO expectedDTO = createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+
+        when(deviceMapper.toEntity(command)).thenReturn(entityToSave);
+        when(deviceRepository.saveAndFlush(entityToSave)).thenReturn(savedEntity);
+        when(deviceMapper.toDTO(savedEntity)).thenReturn(expectedDTO);
+
+        // When
+        deviceService.createDevice(command);
+
+        // Then
+        verify(eventPublisher, times(1)).publishEvent(DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.CREATED)
+                .deviceId(1L)
+                .device(expectedDTO)
+                .build());
+    }
+
     @Test
     void createDevice_WithInactiveState_ShouldCreateSuccessfully() {
         // Given
@@ -106,7 +217,7 @@ class DeviceServiceTest {
         DeviceDTO expectedDTO = createDeviceDTO(1L, "Pixel 8", "Google", DeviceState.INACTIVE);
 
         when(deviceMapper.toEntity(command)).thenReturn(entityToSave);
-        when(deviceRepository.save(any(DeviceEntity.class))).thenReturn(savedEntity);
+        when(deviceRepository.saveAndFlush(any(DeviceEntity.class))).thenReturn(savedEntity);
         when(deviceMapper.toDTO(savedEntity)).thenReturn(expectedDTO);
 
         // When
@@ -114,7 +225,30 @@ class DeviceServiceTest {
 
         // Then
         assertThat(result.getState()).isEqualTo(DeviceState.INACTIVE);
-        verify(deviceRepository, times(1)).save(any(DeviceEntity.class));
+        verify(deviceRepository, times(1)).saveAndFlush(any(DeviceEntity.class));
+    }
+
+    @Test
+    void createDevices_ShouldFlushAndClearPerChunk() {
+        // Given
+        List<DeviceCreateCommand> commands = List.of(
+                createDeviceCreateCommand("iPhone 15", "Apple", DeviceState.AVAILABLE),
+                createDeviceCreateCommand("Pixel 8", "Google", DeviceState.AVAILABLE),
+                createDeviceCreateCommand("Galaxy S23", "Samsung", DeviceState.AVAILABLE));
+
+        when(deviceMapper.toEntity(any(DeviceCreateCommand.class)))
+                .thenAnswer(invocation -> createDeviceEntity(null, invocation.<DeviceCreateCommand>getArgument(0).getName(), "x", DeviceState.AVAILABLE));
+        when(deviceMapper.toDTO(any(DeviceEntity.class)))
+                .thenAnswer(invocation -> createDeviceDTO(null, invocation.<DeviceEntity>getArgument(0).getName(), "x", DeviceState.AVAILABLE));
+
+        // When
+        List<DeviceDTO> result = deviceService.createDevices(commands);
+
+        // Then
+        assertThat(result).extracting(DeviceDTO::getName).containsExactly("iPhone 15", "Pixel 8", "Galaxy S23");
+        verify(deviceRepository, times(2)).saveAll(anyList());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
     }
 
     @Test
@@ -124,12 +258,11 @@ class DeviceServiceTest {
         DeviceEntity existingDevice = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE);
         DeviceUpdateCommand command = createDeviceUpdateCommand(null, null, DeviceState.IN_USE);
         DeviceEntity updatedEntity = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.IN_USE);
-        DeviceDTO expectedDTO = createDeviceDTO(deviceId, "iPhone 15", "Apple", DeviceState.IN_USE);
 
         when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
         doNothing().when(deviceValidator).validateUpdate(existingDevice, command);
-        when(deviceRepository.save(existingDevice)).thenReturn(updatedEntity);
-        when(deviceMapper.toDTO(updatedEntity)).thenReturn(expectedDTO);
+        when(deviceRepository.saveAndFlush(existingDevice)).thenReturn(updatedEntity);
+        stubMapperToDTO();
 
         // When
         DeviceDTO result = deviceService.updateDevice(deviceId, command);
@@ -138,7 +271,15 @@ class DeviceServiceTest {
         assertThat(result.getState()).isEqualTo(DeviceState.IN_USE);
         verify(deviceRepository, times(1)).findById(deviceId);
         verify(deviceValidator, times(1)).validateUpdate(existingDevice, command);
-        verify(deviceRepository, times(1)).save(existingDevice);
+        verify(deviceRepository, times(1)).saveAndFlush(existingDevice);
+
+        ArgumentCaptor<DeviceChangeEvent> eventCaptor = ArgumentCaptor.forClass(DeviceChangeEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(eventCaptor.capture());
+        DeviceChangeEvent event = eventCaptor.getValue();
+        assertThat(event.getType()).isEqualTo(DeviceChangeEvent.Type.UPDATED);
+        assertThat(event.getDeviceId()).isEqualTo(deviceId);
+        assertThat(event.getPrevious().getState()).isEqualTo(DeviceState.AVAILABLE);
+        assertThat(event.getDevice().getState()).isEqualTo(DeviceState.IN_USE);
     }
 
     @Test
@@ -148,12 +289,11 @@ class DeviceServiceTest {
         DeviceEntity existingDevice = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE);
         DeviceUpdateCommand command = createDeviceUpdateCommand("iPhone 15 Pro", null, null);
         DeviceEntity updatedEntity = createDeviceEntity(deviceId, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
-        DeviceDTO expectedDTO = createDeviceDTO(deviceId, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
 
         when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
         doNothing().when(deviceValidator).validateUpdate(existingDevice, command);
-        when(deviceRepository.save(existingDevice)).thenReturn(updatedEntity);
-        when(deviceMapper.toDTO(updatedEntity)).thenReturn(expectedDTO);
+        when(deviceRepository.saveAndFlush(existingDevice)).thenReturn(updatedEntity);
+        stubMapperToDTO();
 
         // When
         DeviceDTO result = deviceService.updateDevice(deviceId, command);
@@ -164,6 +304,24 @@ class DeviceServiceTest {
         verify(deviceValidator, times(1)).validateUpdate(existingDevice, command);
     }
 
+    @Test
+    void updateDevice_WithoutChanges_ShouldNotPublishEvent() {
+        // Given
+        Long deviceId = 1L;
+        DeviceEntity existingDevice = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        DeviceUpdateCommand command = createDeviceUpdateCommand(null, null, DeviceState.AVAILABLE);
+
+        when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
+        when(deviceRepository.saveAndFlush(existingDevice)).thenReturn(existingDevice);
+        stubMapperToDTO();
+
+        // When
+        deviceService.updateDevice(deviceId, command);
+
+        // Then
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
     @Test
     void updateDevice_WithBrandUpdate_ShouldUpdateSuccessfully() {
         // Given
@@ -173,7 +331,7 @@ class DeviceServiceTest {
 
         when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
         doNothing().when(deviceValidator).validateUpdate(existingDevice, command);
-        when(deviceRepository.save(existingDevice)).thenReturn(existingDevice);
+        when(deviceRepository.saveAndFlush(existingDevice)).thenReturn(existingDevice);
         when(deviceMapper.toDTO(existingDevice)).thenReturn(createDeviceDTO(deviceId, "Galaxy S23", "Samsung Electronics", DeviceState.AVAILABLE));
 
         // When
@@ -193,7 +351,7 @@ class DeviceServiceTest {
 
         when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
         doNothing().when(deviceValidator).validateUpdate(existingDevice, command);
-        when(deviceRepository.save(existingDevice)).thenReturn(existingDevice);
+        when(deviceRepository.saveAndFlush(existingDevice)).thenReturn(existingDevice);
         when(deviceMapper.toDTO(existingDevice)).thenReturn(createDeviceDTO(deviceId, "iPhone 15 Pro Max", "Apple Inc", DeviceState.IN_USE));
 
         // When
@@ -219,7 +377,7 @@ class DeviceServiceTest {
 
         verify(deviceRepository, times(1)).findById(deviceId);
         verify(deviceValidator, never()).validateUpdate(any(), any());
-        verify(deviceRepository, never()).save(any());
+        verify(deviceRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -240,7 +398,7 @@ class DeviceServiceTest {
 
         verify(deviceRepository, times(1)).findById(deviceId);
         verify(deviceValidator, times(1)).validateUpdate(existingDevice, command);
-        verify(deviceRepository, never()).save(any());
+        verify(deviceRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -252,7 +410,7 @@ class DeviceServiceTest {
 
         when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
         doNothing().when(deviceValidator).validateUpdate(existingDevice, command);
-        when(deviceRepository.save(existingDevice)).thenReturn(existingDevice);
+        when(deviceRepository.saveAndFlush(existingDevice)).thenReturn(existingDevice);
         when(deviceMapper.toDTO(existingDevice)).thenReturn(createDeviceDTO(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE));
 
         // When
@@ -264,6 +422,46 @@ class DeviceServiceTest {
         assertThat(existingDevice.getState()).isEqualTo(DeviceState.AVAILABLE);
     }
 
+    @Test
+    void updateDevice_WithMatchingExpectedVersion_ShouldUpdate() {
+        // Given
+        Long deviceId = 1L;
+        DeviceEntity existingDevice = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        existingDevice.setVersion(3L);
+        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, DeviceState.IN_USE, 3L);
+
+        when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
+        when(deviceRepository.saveAndFlush(existingDevice)).thenReturn(existingDevice);
+        when(deviceMapper.toDTO(existingDevice)).thenReturn(createDeviceDTO(deviceId, "iPhone 15", "Apple", DeviceState.IN_USE));
+
+        // When
+        deviceService.updateDevice(deviceId, command);
+
+        // Then
+        assertThat(existingDevice.getState()).isEqualTo(DeviceState.IN_USE);
+        verify(deviceRepository, times(1)).saveAndFlush(existingDevice);
+    }
+
+    @Test
+    void updateDevice_WithStaleExpectedVersion_ShouldThrowException() {
+        // Given
+        Long deviceId = 1L;
+        DeviceEntity existingDevice = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        existingDevice.setVersion(4L);
+        DeviceUpdateCommand command = new DeviceUpdateCommand(null, null, DeviceState.IN_USE, 3L);
+
+        when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(existingDevice));
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.updateDevice(deviceId, command))
+                .isInstanceOf(DeviceVersionMismatchException.class)
+                .hasMessage("Device with id 1 is at version 4, but version 3 was expected");
+
+        assertThat(existingDevice.getState()).isEqualTo(DeviceState.AVAILABLE);
+        verify(deviceValidator, never()).validateUpdate(any(), any());
+        verify(deviceRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     void getDeviceById_WithExistingId_ShouldReturnDevice() {
         // Given
@@ -302,207 +500,491 @@ class DeviceServiceTest {
     // ==================== GET DEVICES BY BRAND TESTS ====================
 
     @Test
-    void getDevicesByBrand_ShouldReturnPaginatedDevices() {
+    void getDevices_ByBrand_ShouldReturnPaginatedDevices() {
         // Given
-        String brand = "Apple";
-        List<DeviceEntity> entities = Arrays.asList(
-                createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE),
-                createDeviceEntity(2L, "iPhone 14", "Apple", DeviceState.IN_USE)
-        );
-        Page<DeviceEntity> entityPage = new PageImpl<>(entities);
+        DeviceFilter filter = DeviceFilter.builder().brand("Apple").build();
+        Page<DeviceDTO> dtoPage = new PageImpl<>(Arrays.asList(
+                createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE),
+                createDeviceDTO(2L, "iPhone 14", "Apple", DeviceState.IN_USE)
+        ));
 
-        when(deviceRepository.findByBrand(eq(brand), any(Pageable.class))).thenReturn(entityPage);
-        when(deviceMapper.toDTO(any(DeviceEntity.class)))
-                .thenReturn(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE))
-                .thenReturn(createDeviceDTO(2L, "iPhone 14", "Apple", DeviceState.IN_USE));
+        when(deviceRepository.findDtoPage(eq(filter), any(Pageable.class))).thenReturn(dtoPage);
 
         // When
-        Page<DeviceDTO> result = deviceService.getDevicesByBrand(brand, 0, 10, null);
+        Page<DeviceDTO> result = deviceService.getDevices(filter, 0, 10, null);
 
         // Then
         assertThat(result.getContent()).hasSize(2);
         assertThat(result.getContent().get(0).getBrand()).isEqualTo("Apple");
         assertThat(result.getContent().get(1).getBrand()).isEqualTo("Apple");
-        verify(deviceRepository, times(1)).findByBrand(eq(brand), any(Pageable.class));
+        verify(deviceRepository, times(1)).findDtoPage(eq(filter), any(Pageable.class));
+        verify(deviceMapper, never()).toDTO(any());
     }
 
     @Test
-    void getDevicesByBrand_WithNoDevices_ShouldReturnEmptyPage() {
+    void getDevices_WithNoMatches_ShouldReturnEmptyPage() {
         // Given
-        String brand = "NonExistent";
-        Page<DeviceEntity> emptyPage = new PageImpl<>(Collections.emptyList());
+        DeviceFilter filter = DeviceFilter.builder().brand("NonExistent").build();
+        Page<DeviceDTO> emptyPage = new PageImpl<>(Collections.emptyList());
 
-        when(deviceRepository.findByBrand(eq(brand), any(Pageable.class))).thenReturn(emptyPage);
+        when(deviceRepository.findDtoPage(eq(filter), any(Pageable.class))).thenReturn(emptyPage);
 
         // When
-        Page<DeviceDTO> result = deviceService.getDevicesByBrand(brand, 0, 10, null);
+        Page<DeviceDTO> result = deviceService.getDevices(filter, 0, 10, null);
 
         // Then
         assertThat(result.getContent()).isEmpty();
-        verify(deviceRepository, times(1)).findByBrand(eq(brand), any(Pageable.class));
+        verify(deviceRepository, times(1)).findDtoPage(eq(filter), any(Pageable.class));
     }
 
     @Test
-    void getDevicesByBrand_WithSorting_ShouldApplySorting() {
+    void getDevices_WithSorting_ShouldApplySorting() {
         // Given
-        String brand = "Apple";
-        Page<DeviceEntity> entityPage = new PageImpl<>(Collections.emptyList());
+        DeviceFilter filter = DeviceFilter.builder().brand("Apple").build();
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(deviceRepository.findByBrand(eq(brand), pageableCaptor.capture())).thenReturn(entityPage);
+        when(deviceRepository.findDtoPage(eq(filter), pageableCaptor.capture()))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
 
         // When
-        deviceService.getDevicesByBrand(brand, 0, 10, "name,desc");
+        deviceService.getDevices(filter, 0, 10, "name,desc");
 
         // Then
         Pageable capturedPageable = pageableCaptor.getValue();
-        assertThat(capturedPageable.getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "name"));
+        assertThat(capturedPageable.getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "name", "id"));
     }
 
     @Test
-    void getDevicesByState_ShouldReturnPaginatedDevices() {
+    void getDeviceVersions_ShouldQueryTheSamePageAsTheFullList() {
         // Given
-        DeviceState state = DeviceState.AVAILABLE;
-        List<DeviceEntity> entities = Arrays.asList(
-                createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE),
-                createDeviceEntity(2L, "Galaxy S23", "Samsung", DeviceState.AVAILABLE)
-        );
-        Page<DeviceEntity> entityPage = new PageImpl<>(entities);
+        DeviceFilter filter = DeviceFilter.builder().brand("Apple").build();
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(deviceRepository.findByState(eq(state), any(Pageable.class))).thenReturn(entityPage);
-        when(deviceMapper.toDTO(any(DeviceEntity.class)))
-                .thenReturn(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE))
-                .thenReturn(createDeviceDTO(2L, "Galaxy S23", "Samsung", DeviceState.AVAILABLE));
+        when(deviceRepository.findVersionPage(eq(filter), pageableCaptor.capture()))
+                .thenReturn(new PageImpl<>(List.of(new DeviceVersion(1L, 3L))));
+        when(deviceRepository.findVersionSlice(eq(filter), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(new DeviceVersion(1L, 3L))));
 
         // When
-        Page<DeviceDTO> result = deviceService.getDevicesByState(state, 0, 10, null);
+        Slice<DeviceVersion> page = deviceService.getDeviceVersions(filter, 2, 10, "name,desc", true);
+        Slice<DeviceVersion> slice = deviceService.getDeviceVersions(filter, 2, 10, "name,desc", false);
 
         // Then
-        assertThat(result.getContent()).hasSize(2);
-        assertThat(result.getContent().get(0).getState()).isEqualTo(DeviceState.AVAILABLE);
-        assertThat(result.getContent().get(1).getState()).isEqualTo(DeviceState.AVAILABLE);
-        verify(deviceRepository, times(1)).findByState(eq(state), any(Pageable.class));
+        assertThat(page).isInstanceOf(Page.class);
+        assertThat(slice.getContent()).containsExactly(new DeviceVersion(1L, 3L));
+        assertThat(pageableCaptor.getValue())
+                .isEqualTo(PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "name", "id")));
+        verify(deviceRepository, never()).findDtoPage(any(), any());
     }
 
     @Test
-    void getDevicesByState_WithInUseState_ShouldReturnInUseDevices() {
+    void getDevices_WithCombinedFilter_ShouldPassEveryCriterion() {
         // Given
-        DeviceState state = DeviceState.IN_USE;
-        List<DeviceEntity> entities = Collections.singletonList(
-                createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.IN_USE)
-        );
-        Page<DeviceEntity> entityPage = new PageImpl<>(entities);
+        DeviceFilter filter = DeviceFilter.builder()
+                .brand("Apple")
+                .state(DeviceState.IN_USE)
+                .namePrefix("iPhone")
+                .createdFrom(OffsetDateTime.parse("2024-01-01T00:00:00Z"))
+                .createdTo(OffsetDateTime.parse("2025-01-01T00:00:00Z"))
+                .build();
+        ArgumentCaptor<DeviceFilter> filterCaptor = ArgumentCaptor.forClass(DeviceFilter.class);
 
-        when(deviceRepository.findByState(eq(state), any(Pageable.class))).thenReturn(entityPage);
-        when(deviceMapper.toDTO(any(DeviceEntity.class)))
-                .thenReturn(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.IN_USE));
+        when(deviceRepository.findDtoPage(filterCaptor.capture(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.IN_USE))));
 
         // When
-        Page<DeviceDTO> result = deviceService.getDevicesByState(state, 0, 10, null);
+        Page<DeviceDTO> result = deviceService.getDevices(filter, 0, 10, null);
 
         // Then
         assertThat(result.getContent()).hasSize(1);
-        assertThat(result.getContent().getFirst().getState()).isEqualTo(DeviceState.IN_USE);
+        assertThat(filterCaptor.getValue()).isEqualTo(filter);
     }
 
     @Test
-    void getDevicesByState_WithInactiveState_ShouldReturnInactiveDevices() {
+    void getDevices_WithUnknownSortField_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> deviceService.getDevices(new DeviceFilter(), 0, 10, "password,asc"))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("password");
+
+        verify(deviceRepository, never()).findDtoPage(any(), any());
+    }
+
+    @Test
+    void getDevices_WithoutFilter_ShouldReturnPaginatedDevices() {
         // Given
-        DeviceState state = DeviceState.INACTIVE;
-        List<DeviceEntity> entities = Collections.singletonList(
-                createDeviceEntity(1L, "Pixel 8", "Google", DeviceState.INACTIVE)
-        );
-        Page<DeviceEntity> entityPage = new PageImpl<>(entities);
+        Page<DeviceDTO> dtoPage = new PageImpl<>(Arrays.asList(
+                createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE),
+                createDeviceDTO(2L, "Galaxy S23", "Samsung", DeviceState.IN_USE),
+                createDeviceDTO(3L, "Pixel 8", "Google", DeviceState.INACTIVE)
+        ));
 
-        when(deviceRepository.findByState(eq(state), any(Pageable.class))).thenReturn(entityPage);
-        when(deviceMapper.toDTO(any(DeviceEntity.class)))
-                .thenReturn(createDeviceDTO(1L, "Pixel 8", "Google", DeviceState.INACTIVE));
+        when(deviceRepository.findDtoPage(eq(new DeviceFilter()), any(Pageable.class))).thenReturn(dtoPage);
 
         // When
-        Page<DeviceDTO> result = deviceService.getDevicesByState(state, 0, 10, null);
+        Page<DeviceDTO> result = deviceService.getDevices(new DeviceFilter(), 0, 10, null);
+
+        // Then
+        assertThat(result.getContent()).hasSize(3);
+        verify(deviceRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void sliceDevices_ShouldUseCountFreeQuery() {
+        // Given
+        List<DeviceDTO> dtos = List.of(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE));
+        Slice<DeviceDTO> dtoSlice = new SliceImpl<>(dtos, Pageable.ofSize(1), true);
+
+        when(deviceRepository.findDtoSlice(any(DeviceFilter.class), any(Pageable.class))).thenReturn(dtoSlice);
+
+        // When
+        Slice<DeviceDTO> result = deviceService.sliceDevices(new DeviceFilter(), 0, 1, null);
 
         // Then
         assertThat(result.getContent()).hasSize(1);
-        assertThat(result.getContent().getFirst().getState()).isEqualTo(DeviceState.INACTIVE);
+        assertThat(result.hasNext()).isTrue();
+        verify(deviceRepository, never()).findDtoPage(any(), any());
+    }
+
+    @Test
+    void sliceDevices_WithSorting_ShouldApplySorting() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().state(DeviceState.INACTIVE).build();
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        when(deviceRepository.findDtoSlice(eq(filter), pageableCaptor.capture()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        // When
+        Slice<DeviceDTO> result = deviceService.sliceDevices(filter, 2, 5, "name,desc");
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        assertThat(pageableCaptor.getValue().getPageNumber()).isEqualTo(2);
+        assertThat(pageableCaptor.getValue().getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "name", "id"));
     }
 
     @Test
-    void getAllDevices_ShouldReturnPaginatedDevices() {
+    void scrollDevices_FirstWindow_ShouldReturnNextCursor() {
         // Given
-        List<DeviceEntity> entities = Arrays.asList(
-                createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE),
-                createDeviceEntity(2L, "Galaxy S23", "Samsung", DeviceState.IN_USE),
-                createDeviceEntity(3L, "Pixel 8", "Google", DeviceState.INACTIVE)
-        );
-        Page<DeviceEntity> entityPage = new PageImpl<>(entities);
+        DeviceEntity first = createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        DeviceEntity second = createDeviceEntity(2L, "iPhone 14", "Apple", DeviceState.AVAILABLE);
+        Window<DeviceEntity> window = Window.from(List.of(first, second),
+                index -> ScrollPosition.forward(Map.of("id", index + 1L)), true);
 
-        when(deviceRepository.findAll(any(Pageable.class))).thenReturn(entityPage);
+        FetchableFluentQuery<DeviceEntity> query = stubScroll(window);
         when(deviceMapper.toDTO(any(DeviceEntity.class)))
                 .thenReturn(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE))
-                .thenReturn(createDeviceDTO(2L, "Galaxy S23", "Samsung", DeviceState.IN_USE))
-                .thenReturn(createDeviceDTO(3L, "Pixel 8", "Google", DeviceState.INACTIVE));
+                .thenReturn(createDeviceDTO(2L, "iPhone 14", "Apple", DeviceState.AVAILABLE));
 
         // When
-        Page<DeviceDTO> result = deviceService.getAllDevices(0, 10, null);
+        CursorPage<DeviceDTO> result = deviceService.scrollDevices(new DeviceFilter(), "", 2, null);
 
         // Then
-        assertThat(result.getContent()).hasSize(3);
-        verify(deviceRepository, times(1)).findAll(any(Pageable.class));
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.getSize()).isEqualTo(2);
+        assertThat(result.getNextCursor()).isNotNull();
+        KeysetScrollPosition next = deviceCursorCodec.decode(result.getNextCursor(), Sort.by("id"));
+        assertThat(next.getKeys()).containsEntry("id", 2L);
+        verify(query).sortBy(Sort.by("id"));
+        verify(query).limit(2);
     }
 
     @Test
-    void deleteDevice_WithAvailableDevice_ShouldDeleteSuccessfully() {
+    void scrollDevices_WithCursorAndFilter_ShouldSeekFromCursor() {
         // Given
-        Long deviceId = 1L;
-        DeviceEntity device = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        Sort sort = Sort.by(Sort.Direction.DESC, "name", "id");
+        String after = deviceCursorCodec.encode(ScrollPosition.forward(Map.of("name", "iPhone 15", "id", 7L)), sort);
+        ArgumentCaptor<ScrollPosition> positionCaptor = ArgumentCaptor.forClass(ScrollPosition.class);
 
-        when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(device));
-        doNothing().when(deviceValidator).validateDelete(device);
-        doNothing().when(deviceRepository).delete(device);
+        FetchableFluentQuery<DeviceEntity> query = stubScroll(Window.from(Collections.emptyList(), ScrollPosition::offset));
+        DeviceFilter filter = DeviceFilter.builder().brand("Apple").state(DeviceState.IN_USE).build();
 
         // When
-        deviceService.deleteDevice(deviceId);
+        CursorPage<DeviceDTO> result = deviceService.scrollDevices(filter, after, 10, "name,desc");
 
         // Then
-        verify(deviceRepository, times(1)).findById(deviceId);
-        verify(deviceValidator, times(1)).validateDelete(device);
-        verify(deviceRepository, times(1)).delete(device);
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getNextCursor()).isNull();
+        verify(query).sortBy(sort);
+        verify(query).limit(10);
+        verify(query).scroll(positionCaptor.capture());
+        assertThat(((KeysetScrollPosition) positionCaptor.getValue()).getKeys())
+                .containsEntry("name", "iPhone 15")
+                .containsEntry("id", 7L);
     }
 
     @Test
-    void deleteDevice_WithInactiveDevice_ShouldDeleteSuccessfully() {
+    void scrollDevices_WithCursorForDifferentSort_ShouldThrowException() {
         // Given
-        Long deviceId = 1L;
-        DeviceEntity device = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.INACTIVE);
+        String after = deviceCursorCodec.encode(ScrollPosition.forward(Map.of("id", 7L)), Sort.by("id"));
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.scrollDevices(new DeviceFilter(), after, 10, "name,asc"))
+                .isInstanceOf(InvalidCursorException.class);
+
+        verify(deviceRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void scrollDevices_WithSizeOutOfRange_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> deviceService.scrollDevices(new DeviceFilter(), "", 0, null))
+                .isInstanceOf(InvalidPageSizeException.class)
+                .hasMessage("Page size must be between 1 and 10");
+        assertThatThrownBy(() -> deviceService.scrollDevices(new DeviceFilter(), "", 11, null))
+                .isInstanceOf(InvalidPageSizeException.class);
+
+        verify(deviceRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void searchDevices_WithMoreHits_ShouldCapSizeAndReturnNextCursor() {
+        // Given
+        when(deviceRepository.search("iphone", 100, null, null, 3)).thenReturn(new DeviceSearchResult(List.of(
+                searchHit(4L, "iPhone 15", 1.0f),
+                searchHit(9L, "iPhone 14", 0.8f),
+                searchHit(2L, "Iphone case", 0.8f)), false));
+
+        // When
+        CursorPage<DeviceDTO> result = deviceService.searchDevices("  iphone ", null, 50);
+
+        // Then
+        assertThat(result.getContent()).extracting(DeviceDTO::getId).containsExactly(4L, 9L);
+        assertThat(result.getSize()).isEqualTo(2);
+        assertThat(result.getTruncated()).isFalse();
+        KeysetScrollPosition next = deviceCursorCodec.decode(result.getNextCursor(),
+                Sort.by(Sort.Order.desc("rank"), Sort.Order.asc("id")));
+        assertThat(next.getKeys()).containsEntry("rank", 0.8f).containsEntry("id", 9L);
+    }
 
-        when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(device));
-        doNothing().when(deviceValidator).validateDelete(device);
-        doNothing().when(deviceRepository).delete(device);
+    @Test
+    void searchDevices_WithCursor_ShouldContinueAfterLastHit() {
+        // Given
+        String after = deviceCursorCodec.encode(ScrollPosition.forward(Map.of("rank", 0.8f, "id", 9L)),
+                Sort.by(Sort.Order.desc("rank"), Sort.Order.asc("id")));
+        when(deviceRepository.search("iphone", 100, 0.8f, 9L, 3))
+                .thenReturn(new DeviceSearchResult(List.of(searchHit(2L, "Iphone case", 0.8f)), false));
+
+        // When
+        CursorPage<DeviceDTO> result = deviceService.searchDevices("iphone", after, 2);
+
+        // Then
+        assertThat(result.getContent()).extracting(DeviceDTO::getId).containsExactly(2L);
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchDevices_WhenTheCandidateLimitIsReached_ShouldMarkThePageTruncated() {
+        // Given
+        when(deviceRepository.search("phone", 100, null, null, 3))
+                .thenReturn(new DeviceSearchResult(List.of(searchHit(4L, "iPhone 15", 0.8f)), true));
+
+        // When
+        CursorPage<DeviceDTO> result = deviceService.searchDevices("phone", null, 2);
+
+        // Then
+        assertThat(result.getContent()).extracting(DeviceDTO::getId).containsExactly(4L);
+        assertThat(result.getNextCursor()).isNull();
+        assertThat(result.getTruncated()).isTrue();
+    }
+
+    @Test
+    void searchDevices_WithShortQuery_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> deviceService.searchDevices(" ip ", null, 10))
+                .isInstanceOf(InvalidSearchQueryException.class)
+                .hasMessageContaining("at least 3 characters");
+
+        verify(deviceRepository, never()).search(any(), anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchDevices_WithCursorFromScroll_ShouldThrowException() {
+        // Given
+        String after = deviceCursorCodec.encode(ScrollPosition.forward(Map.of("id", 7L)), Sort.by("id"));
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.searchDevices("iphone", after, 10))
+                .isInstanceOf(InvalidCursorException.class);
+
+        verify(deviceRepository, never()).search(any(), anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void exportDevices_ShouldWriteAndDetachEveryDevice() {
+        // Given
+        DeviceEntity first = createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        DeviceEntity second = createDeviceEntity(2L, "Pixel 8", "Google", DeviceState.INACTIVE);
+        List<DeviceDTO> exported = new ArrayList<>();
+        Session session = mock(Session.class);
+
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.getCacheMode()).thenReturn(CacheMode.NORMAL);
+        when(deviceRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+        when(deviceMapper.toDTO(first)).thenReturn(createDeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE));
+        when(deviceMapper.toDTO(second)).thenReturn(createDeviceDTO(2L, "Pixel 8", "Google", DeviceState.INACTIVE));
+
+        // When
+        deviceService.exportDevices(exported::add);
+
+        // Then
+        assertThat(exported).extracting(DeviceDTO::getId).containsExactly(1L, 2L);
+        verify(entityManager, times(1)).detach(first);
+        verify(entityManager, times(1)).detach(second);
+        InOrder cacheMode = inOrder(session);
+        cacheMode.verify(session).setCacheMode(CacheMode.IGNORE);
+        cacheMode.verify(session).setCacheMode(CacheMode.NORMAL);
+    }
+
+    @Test
+    void deleteDevice_WithAvailableDevice_ShouldDeleteSuccessfully() {
+        // Given
+        Long deviceId = 1L;
+        DeviceEntity deleted = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        when(deviceRepository.deleteByIdAndStateNot(deviceId, DeviceState.IN_USE)).thenReturn(Optional.of(deleted));
+        stubMapperToDTO();
 
         // When
         deviceService.deleteDevice(deviceId);
 
         // Then
-        verify(deviceRepository, times(1)).findById(deviceId);
-        verify(deviceValidator, times(1)).validateDelete(device);
-        verify(deviceRepository, times(1)).delete(device);
+        verify(deviceRepository, times(1)).deleteByIdAndStateNot(deviceId, DeviceState.IN_USE);
+        verify(deviceRepository, never()).existsById(any());
+        verify(deviceRepository, never()).findById(any());
+        verify(eventPublisher, times(1)).publishEvent(DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.DELETED)
+                .deviceId(deviceId)
+                .previous(new DeviceDTO(deviceId, "iPhone 15", "Apple", DeviceState.AVAILABLE, deleted.getCreationTime(), 0L))
+                .build());
     }
 
     @Test
     void deleteDevice_WithInUseDevice_ShouldThrowException() {
         // Given
         Long deviceId = 1L;
-        DeviceEntity device = createDeviceEntity(deviceId, "iPhone 15", "Apple", DeviceState.IN_USE);
+        when(deviceRepository.deleteByIdAndStateNot(deviceId, DeviceState.IN_USE)).thenReturn(Optional.empty());
+        when(deviceRepository.existsById(deviceId)).thenReturn(true);
 
-        when(deviceRepository.findById(deviceId)).thenReturn(Optional.of(device));
-        doThrow(new DeviceInUseException(deviceId)).when(deviceValidator).validateDelete(device);
+        // When & Then
+        assertThatThrownBy(() -> deviceService.deleteDevice(deviceId))
+                .isInstanceOf(DeviceInUseException.class)
+                .hasMessage("Device with id 1 is currently in use and cannot be deleted");
+
+        verify(deviceRepository, times(1)).existsById(deviceId);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void deleteDevice_WithNonExistentDevice_ShouldThrowException() {
+        // Given
+        Long deviceId = 999L;
+        when(deviceRepository.deleteByIdAndStateNot(deviceId, DeviceState.IN_USE)).thenReturn(Optional.empty());
+        when(deviceRepository.existsById(deviceId)).thenReturn(false);
 
         // When & Then
         assertThatThrownBy(() -> deviceService.deleteDevice(deviceId))
-                .isInstanceOf(DeviceInUseException.class);
+                .isInstanceOf(DeviceNotFoundException.class);
 
-        verify(deviceRepository, times(1)).findById(deviceId);
-        verify(deviceValidator, times(1)).validateDelete(device);
-        verify(deviceRepository, never()).delete(any());
+        verify(deviceRepository, times(1)).existsById(deviceId);
+    }
+
+    @Test
+    void transitionStates_ByIds_ShouldUpdateValidDevicesInOneStatementPerChunk() {
+        // Given - chunks of 2 ids
+        DeviceEntity available = createDeviceEntity(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE);
+        DeviceEntity inUse = createDeviceEntity(2L, "iPhone 14", "Apple", DeviceState.IN_USE);
+        DeviceEntity inactive = createDeviceEntity(3L, "iPhone 13", "Apple", DeviceState.INACTIVE);
+        when(deviceRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(available, inUse));
+        when(deviceRepository.findAllByIdForUpdate(List.of(3L, 99L))).thenReturn(List.of(inactive));
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == inUse) {
+                throw new DeviceInUseException("Cannot change the state of a device that is IN_USE in bulk");
+            }
+            return null;
+        }).when(deviceValidator).validateBulkStateTransition(any(DeviceEntity.class), eq(DeviceState.INACTIVE));
+        when(cacheManager.getCache("devices")).thenReturn(devicesCache);
+        stubMapperToDTO();
+
+        // When
+        DeviceStateTransitionResponse response = deviceService.transitionStates(
+                new DeviceStateTransitionCommand(List.of(1L, 2L, 1L, 3L, 99L), null, DeviceState.INACTIVE));
+
+        // Then
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getUnchanged()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getResults())
+                .extracting(DeviceStateTransitionResult::getId, DeviceStateTransitionResult::getStatus)
+                .containsExactly(
+                        tuple(1L, DeviceStateTransitionResult.Status.UPDATED),
+                        tuple(2L, DeviceStateTransitionResult.Status.IN_USE),
+                        tuple(3L, DeviceStateTransitionResult.Status.UNCHANGED),
+                        tuple(99L, DeviceStateTransitionResult.Status.NOT_FOUND));
+        assertThat(response.getResults().get(0).getVersion()).isEqualTo(1L);
+
+        verify(deviceRepository, times(1)).updateStateByIdIn(List.of(1L), DeviceState.INACTIVE);
+        verify(deviceRepository, never()).save(any());
+        DeviceDTO updated = new DeviceDTO(1L, "iPhone 15", "Apple", DeviceState.INACTIVE, available.getCreationTime(), 1L);
+        verify(devicesCache, times(1)).put(1L, updated);
+        verify(eventPublisher, times(1)).publishEvent(DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.UPDATED)
+                .deviceId(1L)
+                .device(updated)
+                .previous(new DeviceDTO(1L, "iPhone 15", "Apple", DeviceState.AVAILABLE, available.getCreationTime(), 0L))
+                .build());
+    }
+
+    @Test
+    void transitionStates_ByBrand_ShouldWalkDevicesInIdOrderChunks() {
+        // Given
+        DeviceEntity first = createDeviceEntity(4L, "Galaxy S23", "Samsung", DeviceState.AVAILABLE);
+        DeviceEntity second = createDeviceEntity(7L, "Galaxy S22", "Samsung", DeviceState.AVAILABLE);
+        DeviceEntity third = createDeviceEntity(9L, "Galaxy S21", "Samsung", DeviceState.AVAILABLE);
+        when(deviceRepository.findByBrandForUpdate("Samsung", 0L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(deviceRepository.findByBrandForUpdate("Samsung", 7L, Limit.of(2))).thenReturn(List.of(third));
+        when(cacheManager.getCache("devices")).thenReturn(devicesCache);
+        stubMapperToDTO();
+
+        // When
+        DeviceStateTransitionResponse response = deviceService.transitionStates(
+                new DeviceStateTransitionCommand(null, "Samsung", DeviceState.INACTIVE));
+
+        // Then
+        assertThat(response.getUpdated()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(DeviceStateTransitionResult::getId).containsExactly(4L, 7L, 9L);
+        verify(deviceRepository).updateStateByIdIn(List.of(4L, 7L), DeviceState.INACTIVE);
+        verify(deviceRepository).updateStateByIdIn(List.of(9L), DeviceState.INACTIVE);
+        verify(eventPublisher, times(3)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void transitionStates_ByBrandOverLimit_ShouldThrowBeforeLockingDevices() {
+        // Given
+        when(deviceRepository.countByBrand("Samsung")).thenReturn(101L);
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.transitionStates(
+                new DeviceStateTransitionCommand(null, "Samsung", DeviceState.INACTIVE)))
+                .isInstanceOf(BatchLimitExceededException.class)
+                .hasMessage("Batch of 101 items exceeds the limit of 100 items");
+
+        verify(deviceRepository, never()).findByBrandForUpdate(any(), anyLong(), any());
+        verify(deviceRepository, never()).updateStateByIdIn(anyList(), any());
+    }
+
+    @Test
+    void transitionStates_WhenNothingChanges_ShouldNotUpdateOrPublish() {
+        // Given
+        DeviceEntity inactive = createDeviceEntity(3L, "iPhone 13", "Apple", DeviceState.INACTIVE);
+        when(deviceRepository.findAllByIdForUpdate(List.of(3L))).thenReturn(List.of(inactive));
+
+        // When
+        DeviceStateTransitionResponse response = deviceService.transitionStates(
+                new DeviceStateTransitionCommand(List.of(3L), null, DeviceState.INACTIVE));
+
+        // Then
+        assertThat(response.getUnchanged()).isEqualTo(1);
+        verify(deviceRepository, never()).updateStateByIdIn(anyList(), any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package org.hometask.devicesapi.service;
+
+import org.hometask.devicesapi.exception.InvalidSortException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceSortResolverTest {
+
+    @Test
+    void resolve_NullOrBlank_ShouldSortById() {
+        // When & Then
+        assertThat(DeviceSortResolver.resolve(null)).isEqualTo(Sort.by(Sort.Direction.ASC, "id"));
+        assertThat(DeviceSortResolver.resolve(" ")).isEqualTo(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    @Test
+    void resolve_FieldWithDirection_ShouldAddIdTieBreaker() {
+        // When
+        Sort sort = DeviceSortResolver.resolve("creationTime,desc");
+
+        // Then
+        assertThat(sort).isEqualTo(Sort.by(Sort.Direction.DESC, "creationTime", "id"));
+    }
+
+    @Test
+    void resolve_FieldOnly_ShouldSortAscending() {
+        // When & Then
+        assertThat(DeviceSortResolver.resolve("brand")).isEqualTo(Sort.by(Sort.Direction.ASC, "brand", "id"));
+    }
+
+    @Test
+    void resolve_NonCanonicalSpelling_ShouldReturnSamePrecompiledSort() {
+        // When
+        Sort canonical = DeviceSortResolver.resolve("name,desc");
+        Sort spaced = DeviceSortResolver.resolve(" name , DESC ");
+
+        // Then
+        assertThat(spaced).isSameAs(canonical);
+        assertThat(DeviceSortResolver.resolve("name,desc")).isSameAs(canonical);
+    }
+
+    @Test
+    void resolve_UnindexedField_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> DeviceSortResolver.resolve("version,asc"))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("'version'");
+    }
+
+    @Test
+    void resolve_UnknownDirection_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> DeviceSortResolver.resolve("name,sideways"))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("'sideways'");
+    }
+
+    @Test
+    void resolve_TooManyParts_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> DeviceSortResolver.resolve("name,asc,id"))
+                .isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> DeviceSortResolver.resolve(","))
+                .isInstanceOf(InvalidSortException.class);
+    }
+}
@@ -0,0 +1,123 @@
+package org.hometask.devicesapi.service;
+
+import jakarta.persistence.EntityManager;
+import org.hometask.devicesapi.config.DeviceBatchProperties;
+import org.hometask.devicesapi.config.DeviceScrollProperties;
+import org.hometask.devicesapi.config.DeviceSearchProperties;
+import org.hometask.devicesapi.config.RetryConfig;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceUpdateCommand;
+import org.hometask.devicesapi.exception.DeviceVersionMismatchException;
+import org.hometask.devicesapi.mapper.DeviceMapper;
+import org.hometask.devicesapi.model.DeviceEntity;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.repository.DeviceRepository;
+import org.hometask.devicesapi.validation.DeviceValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(classes = {RetryConfig.class, DeviceServiceImpl.class})
+@TestPropertySource(properties = {
+        "devices.update.retry.max-attempts=3",
+        "devices.update.retry.delay-ms=1",
+        "devices.update.retry.max-delay-ms=2"
+})
+class DeviceUpdateRetryTest {
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @MockBean
+    private DeviceRepository deviceRepository;
+
+    @MockBean
+    private DeviceMapper deviceMapper;
+
+    @MockBean
+    private DeviceValidator deviceValidator;
+
+    @MockBean
+    private DeviceCursorCodec deviceCursorCodec;
+
+    @MockBean
+    private DeviceBatchProperties batchProperties;
+
+    @MockBean
+    private DeviceSearchProperties searchProperties;
+
+    @MockBean
+    private DeviceScrollProperties scrollProperties;
+
+    @MockBean
+    private EntityManager entityManager;
+
+    @MockBean
+    private CacheManager cacheManager;
+
+    private final ObjectOptimisticLockingFailureException conflict =
+            new ObjectOptimisticLockingFailureException(DeviceEntity.class, 1L);
+
+    @BeforeEach
+    void setUp() {
+        when(deviceRepository.findById(1L)).thenAnswer(invocation -> Optional.of(DeviceEntity.builder()
+                .id(1L).name("iPhone 15").brand("Apple").state(DeviceState.AVAILABLE)
+                .creationTime(OffsetDateTime.now()).version(0L).build()));
+        when(deviceMapper.toDTO(any(DeviceEntity.class))).thenAnswer(invocation -> {
+            DeviceEntity device = invocation.getArgument(0);
+            return new DeviceDTO(device.getId(), device.getName(), device.getBrand(), device.getState(),
+                    device.getCreationTime(), device.getVersion());
+        });
+    }
+
+    @Test
+    void updateDevice_WithTransientConflict_ShouldRetryAndSucceed() {
+        // Given
+        when(deviceRepository.saveAndFlush(any(DeviceEntity.class)))
+                .thenThrow(conflict)
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        DeviceDTO result = deviceService.updateDevice(1L, new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null));
+
+        // Then
+        assertThat(result.getState()).isEqualTo(DeviceState.IN_USE);
+        verify(deviceRepository, times(2)).findById(1L);
+        verify(deviceRepository, times(2)).saveAndFlush(any(DeviceEntity.class));
+    }
+
+    @Test
+    void updateDevice_WithPersistentConflict_ShouldGiveUpAfterMaxAttempts() {
+        // Given
+        when(deviceRepository.saveAndFlush(any(DeviceEntity.class))).thenThrow(conflict);
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.updateDevice(1L, new DeviceUpdateCommand(null, null, DeviceState.IN_USE, null)))
+                .isSameAs(conflict);
+
+        verify(deviceRepository, times(3)).saveAndFlush(any(DeviceEntity.class));
+    }
+
+    @Test
+    void updateDevice_WithVersionMismatch_ShouldNotRetry() {
+        // When & Then
+        assertThatThrownBy(() -> deviceService.updateDevice(1L, new DeviceUpdateCommand(null, null, DeviceState.IN_USE, 7L)))
+                .isInstanceOf(DeviceVersionMismatchException.class);
+
+        verify(deviceRepository, times(1)).findById(1L);
+        verify(deviceRepository, never()).saveAndFlush(any(DeviceEntity.class));
+    }
+}
@@ -0,0 +1,127 @@
+package org.hometask.devicesapi.stats;
+
+import org.hometask.devicesapi.dto.DeviceChangeEvent;
+import org.hometask.devicesapi.dto.DeviceDTO;
+import org.hometask.devicesapi.dto.DeviceGroupCount;
+import org.hometask.devicesapi.dto.DeviceStats;
+import org.hometask.devicesapi.model.DeviceState;
+import org.hometask.devicesapi.repository.DeviceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceStatsTrackerTest {
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    @InjectMocks
+    private DeviceStatsTracker tracker;
+
+    @Test
+    void onDeviceChange_ShouldAdjustCountsForCreatesUpdatesAndDeletes() {
+        // Given
+        tracker.onDeviceChange(created(device(1L, "Apple", DeviceState.AVAILABLE)));
+        tracker.onDeviceChange(created(device(2L, "Apple", DeviceState.AVAILABLE)));
+        tracker.onDeviceChange(created(device(3L, "Samsung", DeviceState.AVAILABLE)));
+
+        // When
+        tracker.onDeviceChange(DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.UPDATED)
+                .deviceId(1L)
+                .device(device(1L, "Apple", DeviceState.IN_USE))
+                .previous(device(1L, "Apple", DeviceState.AVAILABLE))
+                .build());
+        tracker.onDeviceChange(DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.DELETED)
+                .deviceId(3L)
+                .previous(device(3L, "Samsung", DeviceState.AVAILABLE))
+                .build());
+
+        // Then
+        DeviceStats stats = tracker.getStats();
+        assertThat(stats.getTotal()).isEqualTo(2);
+        assertThat(stats.getByState()).containsEntry(DeviceState.AVAILABLE, 1L)
+                .containsEntry(DeviceState.IN_USE, 1L)
+                .containsEntry(DeviceState.INACTIVE, 0L);
+        assertThat(stats.getByBrand()).containsExactly(Map.entry("Apple", 2L));
+        assertThat(stats.getByBrandAndState().get("Apple"))
+                .containsExactlyInAnyOrderEntriesOf(Map.of(DeviceState.AVAILABLE, 1L, DeviceState.IN_USE, 1L));
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    void getStats_WithoutChanges_ShouldReuseSnapshot() {
+        // Given
+        tracker.onDeviceChange(created(device(1L, "Apple", DeviceState.AVAILABLE)));
+        DeviceStats first = tracker.getStats();
+
+        // When
+        DeviceStats second = tracker.getStats();
+        tracker.onDeviceChange(created(device(2L, "Apple", DeviceState.AVAILABLE)));
+        DeviceStats third = tracker.getStats();
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(third.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void reconcile_ShouldReplaceCountsWithDatabaseCounts() {
+        // Given - the tracker missed a device created elsewhere and counted one twice
+        tracker.onDeviceChange(created(device(1L, "Apple", DeviceState.AVAILABLE)));
+        tracker.onDeviceChange(created(device(1L, "Apple", DeviceState.AVAILABLE)));
+        when(deviceRepository.countByBrandAndState()).thenReturn(List.of(
+                new DeviceGroupCount("Apple", DeviceState.AVAILABLE, 1L),
+                new DeviceGroupCount("Google", DeviceState.INACTIVE, 4L)));
+
+        // When
+        tracker.reconcile();
+
+        // Then
+        DeviceStats stats = tracker.getStats();
+        assertThat(stats.getTotal()).isEqualTo(5);
+        assertThat(stats.getByBrand()).containsEntry("Apple", 1L).containsEntry("Google", 4L);
+        assertThat(stats.getReconciledAt()).isNotNull();
+    }
+
+    @Test
+    void reconcile_WhenDevicesChangeDuringEveryCount_ShouldKeepCounts() {
+        // Given
+        tracker.onDeviceChange(created(device(1L, "Apple", DeviceState.AVAILABLE)));
+        when(deviceRepository.countByBrandAndState()).thenAnswer(invocation -> {
+            tracker.onDeviceChange(created(device(2L, "Apple", DeviceState.AVAILABLE)));
+            return List.of();
+        });
+
+        // When
+        tracker.reconcile();
+
+        // Then
+        verify(deviceRepository, times(DeviceStatsTracker.MAX_RECONCILE_ATTEMPTS)).countByBrandAndState();
+        DeviceStats stats = tracker.getStats();
+        assertThat(stats.getTotal()).isEqualTo(1 + DeviceStatsTracker.MAX_RECONCILE_ATTEMPTS);
+        assertThat(stats.getReconciledAt()).isNull();
+    }
+
+    private static DeviceChangeEvent created(DeviceDTO device) {
+        return DeviceChangeEvent.builder()
+                .type(DeviceChangeEvent.Type.CREATED)
+                .deviceId(device.getId())
+                .device(device)
+                .build();
+    }
+
+    private static DeviceDTO device(Long id, String brand, DeviceState state) {
+        return DeviceDTO.builder().id(id).name("Device " + id).brand(brand).state(state).version(0L).build();
+    }
+}
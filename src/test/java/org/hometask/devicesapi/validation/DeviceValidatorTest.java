@@ -277,25 +277,18 @@ class DeviceValidatorTest {
     }
 
     @Test
-    void validateDelete_AvailableDevice_ShouldNotThrowException() {
-        // Given
-        DeviceEntity device = createDevice(1L, DeviceState.AVAILABLE);
-
+    void validateBulkStateTransition_AvailableDevice_ShouldNotThrowException() {
         // When & Then
-        assertThatCode(() -> deviceValidator.validateDelete(device))
+        assertThatCode(() -> deviceValidator.validateBulkStateTransition(availableDevice(), DeviceState.INACTIVE))
                 .doesNotThrowAnyException();
     }
 
     @Test
-    void validateDelete_InUseDevice_ShouldThrowExceptionWithId() {
-        // Given
-        Long deviceId = 123L;
-
-        DeviceEntity device = createDevice(deviceId, DeviceState.IN_USE);
+    void validateBulkStateTransition_InUseDevice_ShouldThrowException() {
         // When & Then
-        assertThatThrownBy(() -> deviceValidator.validateDelete(device))
-                .isInstanceOf(DeviceInUseException.class);
-
+        assertThatThrownBy(() -> deviceValidator.validateBulkStateTransition(inUseDevice(), DeviceState.AVAILABLE))
+                .isInstanceOf(DeviceInUseException.class)
+                .hasMessageContaining("Cannot change the state of a device that is IN_USE in bulk");
     }
 
     private DeviceEntity createDevice(Long id, DeviceState state) {
@@ -317,7 +310,7 @@ class DeviceValidatorTest {
     }
 
     private DeviceUpdateCommand createUpdateCommand(String name, String brand, DeviceState state) {
-        return new DeviceUpdateCommand(name, brand, state);
+        return new DeviceUpdateCommand(name, brand, state, null);
     }
 
     private DeviceEntity inactiveDevice() {